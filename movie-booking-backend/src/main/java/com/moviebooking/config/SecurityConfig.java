@@ -2,7 +2,9 @@ package com.moviebooking.config;
 
 import com.moviebooking.security.JwtAuthenticationEntryPoint;
 import com.moviebooking.security.JwtAuthenticationFilter;
+import com.moviebooking.security.RateLimitFilter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -44,6 +46,7 @@ public class SecurityConfig {
     
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final UserDetailsService userDetailsService;
 
     /**
@@ -62,23 +65,25 @@ public class SecurityConfig {
     /**
      * Configures the password encoder for secure password hashing.
      * 
+     * @param strength the BCrypt cost factor (log2 of the number of rounds)
      * @return BCrypt password encoder
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${booking.password.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
     
     /**
      * Configures the authentication provider for user authentication.
      * 
+     * @param passwordEncoder the password encoder
      * @return configured authentication provider
      */
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
     
@@ -98,14 +103,21 @@ public class SecurityConfig {
      * Configures the security filter chain with JWT authentication and endpoint authorization.
      * 
      * @param http HTTP security configuration
+     * @param authenticationProvider the user authentication provider
      * @return configured security filter chain
      * @throws Exception if configuration fails
      */
    @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, AuthenticationProvider authenticationProvider) throws Exception {
         http.csrf(AbstractHttpConfigurer::disable)
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .authorizeHttpRequests(authz -> authz
+                // Seat holds belong to a user
+                .requestMatchers("/api/showtimes/*/holds", "/api/showtimes/*/holds/**").authenticated()
+                .requestMatchers("/api/showtimes/*/auto-allocate").authenticated()
+                // Queue tokens are issued to a user
+                .requestMatchers("/api/showtimes/*/queue").authenticated()
+                .requestMatchers("/api/auth/logout").authenticated()
                 // Public endpoints
                 .requestMatchers(
                     "/swagger-ui/**",
@@ -132,8 +144,10 @@ public class SecurityConfig {
             )
             .exceptionHandling(ex -> ex.authenticationEntryPoint(jwtAuthenticationEntryPoint))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-            .authenticationProvider(authenticationProvider())
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .authenticationProvider(authenticationProvider)
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            // Limits are checked once the user is known, and before any route is served
+            .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
@@ -1,7 +1,10 @@
 package com.moviebooking.controller;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -18,6 +21,7 @@ import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -25,13 +29,15 @@ import lombok.RequiredArgsConstructor;
 /**
  * REST controller for handling authentication operations.
  * 
- * <p>This controller provides endpoints for user registration and login.
- * All endpoints are publicly accessible and do not require authentication.</p>
+ * <p>This controller provides endpoints for user registration, login and
+ * logout. Registration and login are publicly accessible; logout requires
+ * authentication.</p>
  * 
  * <p>Available endpoints:</p>
  * <ul>
  *   <li><strong>POST /auth/register</strong>: Register a new user</li>
  *   <li><strong>POST /auth/login</strong>: Authenticate an existing user</li>
+ *   <li><strong>POST /auth/logout</strong>: Revoke every token of the current user</li>
  * </ul>
  * 
  * @author Movie Booking Team
@@ -60,7 +66,7 @@ public class AuthController {
      * </ul>
      * 
      * @param request the user registration request containing email, name, password, and role
-     * @return ResponseEntity containing the authentication response with JWT token
+     * @return future ResponseEntity containing the authentication response with JWT token, completed once the password is hashed
      * @throws BadRequestException if email is already registered or validation fails
      */
     @PostMapping("/register")
@@ -117,11 +123,19 @@ public class AuthController {
                 mediaType = "application/json",
                 schema = @Schema(implementation = com.moviebooking.dto.ApiResponse.class)
             )
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Too many sign-ins in progress - retry shortly",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = com.moviebooking.dto.ApiResponse.class)
+            )
         )
     })
-    public ResponseEntity<AuthResponse> register(@Valid @RequestBody UserCreateRequest request) {
-        AuthResponse response = authService.register(request);
-        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    public CompletableFuture<ResponseEntity<AuthResponse>> register(@Valid @RequestBody UserCreateRequest request) {
+        return authService.register(request)
+                .thenApply(response -> new ResponseEntity<>(response, HttpStatus.CREATED));
     }
     
     /**
@@ -134,7 +148,7 @@ public class AuthController {
      * Authorization header as "Bearer {token}".</p>
      * 
      * @param request the login request containing email and password
-     * @return ResponseEntity containing the authentication response with JWT token
+     * @return future ResponseEntity containing the authentication response with JWT token, completed once the password is checked
      * @throws BadRequestException if email or password is invalid
      */
     @PostMapping("/login")
@@ -191,11 +205,47 @@ public class AuthController {
                 mediaType = "application/json",
                 schema = @Schema(implementation = com.moviebooking.dto.ApiResponse.class)
             )
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Too many sign-ins in progress - retry shortly",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = com.moviebooking.dto.ApiResponse.class)
+            )
+        )
+    })
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(@Valid @RequestBody UserLoginRequest request) {
+        return authService.login(request).thenApply(ResponseEntity::ok);
+    }
+    
+    /**
+     * Logs the current user out on every device.
+     * 
+     * <p>Every token issued to the user so far is revoked; the user has to log
+     * in again to get a new one.</p>
+     * 
+     * @param authentication the authenticated user
+     * @return ResponseEntity with no content
+     */
+    @PostMapping("/logout")
+    @Operation(
+        summary = "Log out",
+        description = "Revokes every token issued to the current user so far"
+    )
+    @SecurityRequirement(name = "Bearer Authentication")
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "204",
+            description = "Tokens revoked successfully"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Unauthorized - Missing or invalid authentication token"
         )
     })
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody UserLoginRequest request) {
-        AuthResponse response = authService.login(request);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<Void> logout(Authentication authentication) {
+        authService.logout(authentication.getName());
+        return ResponseEntity.noContent().build();
     }
 }
-
@@ -1,6 +1,7 @@
 package com.moviebooking.controller;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -10,12 +11,15 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.moviebooking.dto.BookingCreateRequest;
 import com.moviebooking.models.Booking;
 import com.moviebooking.service.BookingService;
+import com.moviebooking.service.IdempotencyService;
+import com.moviebooking.service.WaitingRoomService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -55,6 +59,8 @@ import lombok.RequiredArgsConstructor;
 public class BookingController {
     
     private final BookingService bookingService;
+    private final IdempotencyService idempotencyService;
+    private final WaitingRoomService waitingRoomService;
     
     /**
      * Creates a new booking for the authenticated user.
@@ -70,7 +76,16 @@ public class BookingController {
      *   <li>Total amount for the booking</li>
      * </ul>
      * 
+     * <p>Clients that retry on timeouts should send an {@code Idempotency-Key}
+     * header. Repeating a request with the same key returns the booking created
+     * by the first request instead of booking again.</p>
+     * 
+     * <p>Showtimes behind the waiting room also require an admitted
+     * {@code X-Queue-Token}.</p>
+     * 
      * @param request the booking creation request
+     * @param idempotencyKey optional key identifying retries of the same request
+     * @param queueToken waiting room token, required for gated showtimes
      * @param authentication the authenticated user's information
      * @return ResponseEntity containing the created booking
      * @throws BadRequestException if seats are unavailable or validation fails
@@ -147,13 +162,28 @@ public class BookingController {
                 mediaType = "application/json",
                 schema = @Schema(implementation = com.moviebooking.dto.ApiResponse.class)
             )
+        ),
+        @ApiResponse(
+            responseCode = "429",
+            description = "Too many requests - Showtime is behind the waiting room and the queue token is not admitted yet"
         )
     })
     public ResponseEntity<Booking> createBooking(
             @Valid @RequestBody BookingCreateRequest request,
+            @Parameter(description = "Key identifying retries of the same booking request", example = "7f9c2ba4-e88f-4e3a-9c1d-2d2b8f6a1c55")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Parameter(description = "Waiting room token, required for showtimes behind the waiting room")
+            @RequestHeader(value = "X-Queue-Token", required = false) String queueToken,
             @Parameter(hidden = true) Authentication authentication) {
         String userId = authentication.getName();
-        Booking booking = bookingService.createBooking(request, userId);
+        // A replayed Idempotency-Key is answered before admission, which only gates new bookings
+        Supplier<Booking> createBooking = () -> {
+            waitingRoomService.checkAdmitted(request.getShowtimeId(), userId, queueToken);
+            return bookingService.createBooking(request, userId);
+        };
+        Booking booking = idempotencyKey == null
+                ? createBooking.get()
+                : idempotencyService.createOnce(userId, idempotencyKey, request, createBooking);
         return new ResponseEntity<>(booking, HttpStatus.CREATED);
     }
     
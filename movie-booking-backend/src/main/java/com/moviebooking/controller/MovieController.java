@@ -1,7 +1,10 @@
 package com.moviebooking.controller;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -10,11 +13,16 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.moviebooking.dto.MovieCreateRequest;
+import com.moviebooking.dto.MovieFacetResponse;
+import com.moviebooking.dto.NowShowingResponse;
 import com.moviebooking.models.Movie;
 import com.moviebooking.service.MovieService;
+import com.moviebooking.utils.CatalogResponseWriter;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -44,16 +52,23 @@ import lombok.RequiredArgsConstructor;
 public class MovieController {
     
     private final MovieService movieService;
+    private final CatalogResponseWriter catalogResponseWriter;
     
     /**
-     * Retrieves all movies in the system.
+     * Retrieves movies in ID order.
      * 
-     * @return ResponseEntity containing the list of all movies
+     * <p>Without a limit the whole catalog is streamed. With a limit one page
+     * is returned, and the {@code Link} header points to the next page.</p>
+     * 
+     * @param limit the maximum number of movies to return, or null for all
+     * @param after the cursor of the page to return, from the previous page
+     * @param fields the fields to return besides the ID, or null for all
+     * @return ResponseEntity streaming the movies as a JSON array
      */
     @GetMapping
     @Operation(
-        summary = "Get all movies",
-        description = "Retrieves all movies available in the system"
+        summary = "Get movies",
+        description = "Retrieves movies in ID order, optionally one page at a time and with only some fields"
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -63,13 +78,172 @@ public class MovieController {
                 mediaType = "application/json",
                 schema = @Schema(implementation = Movie.class, type = "array")
             )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid limit or unknown field",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = com.moviebooking.dto.ApiResponse.class)
+            )
         )
     })
-    public ResponseEntity<List<Movie>> getAllMovies() {
-        List<Movie> movies = movieService.getAllMovies();
+    public ResponseEntity<StreamingResponseBody> getMovies(
+            @Parameter(description = "Page size, at most 500; omit to get every movie", example = "20")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Cursor from the previous page's Link or X-Next-Cursor header")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Comma-separated fields to return", example = "title,genre,posterUrl")
+            @RequestParam(required = false) Set<String> fields) {
+        if (limit == null) {
+            return catalogResponseWriter.all(movieService.streamMovies(), fields);
+        }
+        return catalogResponseWriter.page(movieService.getMoviePage(after, limit, fields), fields);
+    }
+    
+    /**
+     * Searches movies by title, genre, language and description.
+     * 
+     * @param q the search words; the last word also matches as a prefix
+     * @param limit the maximum number of movies to return
+     * @return ResponseEntity containing the best matching movies, best first
+     */
+    @GetMapping("/search")
+    @Operation(
+        summary = "Search movies",
+        description = "Full-text search with type-ahead and typo tolerance, ranked by relevance"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Search completed successfully",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = Movie.class, type = "array")
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid limit",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = com.moviebooking.dto.ApiResponse.class)
+            )
+        )
+    })
+    public ResponseEntity<List<Movie>> searchMovies(
+            @Parameter(description = "Search words", example = "dark kni")
+            @RequestParam String q,
+            @Parameter(description = "Maximum number of results, at most 50", example = "10")
+            @RequestParam(defaultValue = "10") int limit) {
+        List<Movie> movies = movieService.searchMovies(q, limit);
         return ResponseEntity.ok(movies);
     }
     
+    /**
+     * Filters movies by genre, language, rating and release date.
+     * 
+     * <p>Several values of one facet match any of them; different facets must
+     * all match. The response also counts the matching movies per genre and
+     * language, each ignoring its own selection.</p>
+     * 
+     * @param genre the genres to match
+     * @param language the languages to match
+     * @param minRating the lowest rating to match
+     * @param maxRating the highest rating to match
+     * @param releasedFrom the first release date to match
+     * @param releasedTo the last release date to match
+     * @param offset the number of matching movies to skip
+     * @param limit the maximum number of movies to return
+     * @return ResponseEntity containing the matching movies and facet counts
+     */
+    @GetMapping("/filter")
+    @Operation(
+        summary = "Filter movies",
+        description = "Filters movies by genre, language, rating and release date, newest first, with facet counts"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Movies filtered successfully",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = MovieFacetResponse.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid paging or range",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = com.moviebooking.dto.ApiResponse.class)
+            )
+        )
+    })
+    public ResponseEntity<MovieFacetResponse> filterMovies(
+            @Parameter(description = "Genres to match, any of them", example = "Action,Drama")
+            @RequestParam(required = false) Set<String> genre,
+            @Parameter(description = "Languages to match, any of them", example = "English")
+            @RequestParam(required = false) Set<String> language,
+            @Parameter(description = "Lowest rating", example = "7.0")
+            @RequestParam(required = false) Double minRating,
+            @Parameter(description = "Highest rating", example = "10.0")
+            @RequestParam(required = false) Double maxRating,
+            @Parameter(description = "First release date, inclusive", example = "2024-01-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedFrom,
+            @Parameter(description = "Last release date, inclusive", example = "2024-12-31")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedTo,
+            @Parameter(description = "Number of matching movies to skip", example = "0")
+            @RequestParam(defaultValue = "0") int offset,
+            @Parameter(description = "Maximum number of movies, at most 100", example = "20")
+            @RequestParam(defaultValue = "20") int limit) {
+        MovieFacetResponse response = movieService.filterMovies(genre, language, minRating, maxRating,
+                releasedFrom, releasedTo, offset, limit);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Retrieves the movies with upcoming showtimes, per day and city.
+     * 
+     * @param city the city to look in, or null for every city
+     * @param from the first day, or null for today
+     * @param days the number of days to cover
+     * @return ResponseEntity containing the movies showing each day in each city
+     */
+    @GetMapping("/now-showing")
+    @Operation(
+        summary = "Get movies now showing",
+        description = "Lists, per day and city, the movies with showtimes left, with their first showtime and lowest price"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Movies retrieved successfully",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = NowShowingResponse.class, type = "array")
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid number of days",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = com.moviebooking.dto.ApiResponse.class)
+            )
+        )
+    })
+    public ResponseEntity<List<NowShowingResponse>> getNowShowing(
+            @Parameter(description = "City, matched against the theatre location", example = "Mumbai")
+            @RequestParam(required = false) String city,
+            @Parameter(description = "First day, defaults to today", example = "2024-06-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Number of days, at most 31", example = "7")
+            @RequestParam(defaultValue = "7") int days) {
+        List<NowShowingResponse> response = movieService.getNowShowing(city, from, days);
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Retrieves a specific movie by its ID.
      * 
@@ -1,22 +1,42 @@
 package com.moviebooking.controller;
 
-import java.util.List;
+import java.time.LocalDate;
+import java.util.Set;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.moviebooking.dto.CompactSeatsResponse;
+import com.moviebooking.dto.QueueTicketResponse;
+import com.moviebooking.dto.SeatHoldRequest;
+import com.moviebooking.dto.SeatHoldResponse;
 import com.moviebooking.dto.SeatsResponse;
 import com.moviebooking.dto.ShowtimeCreateRequest;
 import com.moviebooking.models.Showtime;
+import com.moviebooking.service.SeatHoldService;
+import com.moviebooking.service.SeatMapBroadcaster;
+import com.moviebooking.service.SeatMapVersions;
 import com.moviebooking.service.ShowtimeService;
+import com.moviebooking.service.WaitingRoomService;
+import com.moviebooking.utils.CatalogResponseWriter;
+import com.moviebooking.utils.SeatMapCodec;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -26,14 +46,34 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class ShowtimeController {
     
+    /**
+     * Media type of the compact JSON seat map.
+     */
+    public static final String COMPACT_SEATS_JSON = "application/vnd.moviebooking.seats-compact+json";
+    
     private final ShowtimeService showtimeService;
+    private final SeatHoldService seatHoldService;
+    private final WaitingRoomService waitingRoomService;
+    private final SeatMapVersions seatMapVersions;
+    private final SeatMapBroadcaster seatMapBroadcaster;
+    private final CatalogResponseWriter catalogResponseWriter;
     
     @GetMapping
-    public ResponseEntity<List<Showtime>> getShowtimes(
+    public ResponseEntity<StreamingResponseBody> getShowtimes(
             @RequestParam(required = false) String movieId,
-            @RequestParam(required = false) String theatreId) {
-        List<Showtime> showtimes = showtimeService.getShowtimes(movieId, theatreId);
-        return ResponseEntity.ok(showtimes);
+            @RequestParam(required = false) String theatreId,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Set<String> fields) {
+        if (limit == null) {
+            return catalogResponseWriter.all(
+                    showtimeService.streamShowtimes(movieId, theatreId, city, from, to, fields), fields);
+        }
+        return catalogResponseWriter.page(
+                showtimeService.getShowtimePage(movieId, theatreId, city, from, to, after, limit, fields), fields);
     }
     
     @PostMapping
@@ -44,9 +84,120 @@ public class ShowtimeController {
     }
     
     @GetMapping("/{id}/seats")
-    public ResponseEntity<SeatsResponse> getSeats(@PathVariable String id) {
-        SeatsResponse response = showtimeService.getSeats(id);
+    public ResponseEntity<SeatsResponse> getSeats(
+            @PathVariable String id,
+            @RequestHeader(value = "X-Queue-Token", required = false) String queueToken,
+            WebRequest webRequest,
+            Authentication authentication) {
+        waitingRoomService.checkAdmitted(id, userId(authentication), queueToken);
+        SeatMapVersions.Version version = showtimeService.getSeatMapVersion(id);
+        String etag = seatMapVersions.etag(version, null);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(showtimeService.getSeats(id, version));
+    }
+    
+    @GetMapping(path = "/{id}/seats", produces = COMPACT_SEATS_JSON)
+    public ResponseEntity<CompactSeatsResponse> getCompactSeats(
+            @PathVariable String id,
+            @RequestHeader(value = "X-Queue-Token", required = false) String queueToken,
+            WebRequest webRequest,
+            Authentication authentication) {
+        waitingRoomService.checkAdmitted(id, userId(authentication), queueToken);
+        SeatMapVersions.Version version = showtimeService.getSeatMapVersion(id);
+        String etag = seatMapVersions.etag(version, "compact");
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(MediaType.parseMediaType(COMPACT_SEATS_JSON))
+                .body(showtimeService.getCompactSeats(id, version));
+    }
+    
+    @GetMapping(path = "/{id}/seats", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> getBinarySeats(
+            @PathVariable String id,
+            @RequestHeader(value = "X-Queue-Token", required = false) String queueToken,
+            WebRequest webRequest,
+            Authentication authentication) {
+        waitingRoomService.checkAdmitted(id, userId(authentication), queueToken);
+        SeatMapVersions.Version version = showtimeService.getSeatMapVersion(id);
+        String etag = seatMapVersions.etag(version, "binary");
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(SeatMapCodec.toBinary(showtimeService.getCompactSeats(id, version)));
+    }
+    
+    @GetMapping(path = "/{id}/seats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSeats(
+            @PathVariable String id,
+            @RequestHeader(value = "X-Queue-Token", required = false) String queueToken,
+            @RequestParam(value = "queueToken", required = false) String queueTokenParam) {
+        // EventSource cannot send headers, so the queue token may come as a parameter and stands in for the login
+        waitingRoomService.checkAdmittedByToken(id, queueToken != null ? queueToken : queueTokenParam);
+        return seatMapBroadcaster.subscribe(id, showtimeService.getSeats(id));
+    }
+    
+    @PostMapping("/{id}/holds")
+    public ResponseEntity<SeatHoldResponse> createHold(
+            @PathVariable String id,
+            @Valid @RequestBody SeatHoldRequest request,
+            @RequestHeader(value = "X-Queue-Token", required = false) String queueToken,
+            Authentication authentication) {
+        waitingRoomService.checkAdmitted(id, authentication.getName(), queueToken);
+        SeatHoldResponse response = seatHoldService.createHold(id, request, authentication.getName());
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+    
+    @PostMapping("/{id}/auto-allocate")
+    public ResponseEntity<SeatHoldResponse> autoAllocate(
+            @PathVariable String id,
+            @RequestParam int count,
+            @RequestHeader(value = "X-Queue-Token", required = false) String queueToken,
+            Authentication authentication) {
+        waitingRoomService.checkAdmitted(id, authentication.getName(), queueToken);
+        SeatHoldResponse response = seatHoldService.autoAllocate(id, count, authentication.getName());
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+    
+    @PostMapping("/{id}/queue")
+    public ResponseEntity<QueueTicketResponse> joinQueue(
+            @PathVariable String id,
+            Authentication authentication) {
+        QueueTicketResponse response = waitingRoomService.join(id, authentication.getName());
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+    
+    @GetMapping("/{id}/queue")
+    public ResponseEntity<QueueTicketResponse> getQueueStatus(
+            @PathVariable String id,
+            @RequestHeader("X-Queue-Token") String queueToken,
+            Authentication authentication) {
+        QueueTicketResponse response = waitingRoomService.status(id, authentication.getName(), queueToken);
         return ResponseEntity.ok(response);
     }
+    
+    @DeleteMapping("/{id}/holds/{holdId}")
+    public ResponseEntity<Void> releaseHold(
+            @PathVariable String id,
+            @PathVariable String holdId,
+            Authentication authentication) {
+        seatHoldService.releaseHold(id, holdId, authentication.getName());
+        return ResponseEntity.noContent().build();
+    }
+    
+    private static String userId(Authentication authentication) {
+        return authentication != null ? authentication.getName() : null;
+    }
 }
-
@@ -1,6 +1,6 @@
 package com.moviebooking.controller;
 
-import java.util.List;
+import java.util.Set;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -9,11 +9,14 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.moviebooking.dto.TheatreCreateRequest;
 import com.moviebooking.models.Theatre;
 import com.moviebooking.service.TheatreService;
+import com.moviebooking.utils.CatalogResponseWriter;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -24,11 +27,17 @@ import lombok.RequiredArgsConstructor;
 public class TheatreController {
     
     private final TheatreService theatreService;
+    private final CatalogResponseWriter catalogResponseWriter;
     
     @GetMapping
-    public ResponseEntity<List<Theatre>> getAllTheatres() {
-        List<Theatre> theatres = theatreService.getAllTheatres();
-        return ResponseEntity.ok(theatres);
+    public ResponseEntity<StreamingResponseBody> getTheatres(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Set<String> fields) {
+        if (limit == null) {
+            return catalogResponseWriter.all(theatreService.streamTheatres(), fields);
+        }
+        return catalogResponseWriter.page(theatreService.getTheatrePage(after, limit, fields), fields);
     }
     
     @PostMapping
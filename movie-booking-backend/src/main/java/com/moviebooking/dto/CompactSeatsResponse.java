@@ -0,0 +1,55 @@
+package com.moviebooking.dto;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Compact seat map of a showtime.
+ * 
+ * <p>Instead of one object per seat, the statuses are packed two bits per
+ * seat, four seats per byte, starting with the least significant bits of the
+ * first byte. Seat {@code i} ({@code rowIndex * seatsPerRow + number - 1})
+ * has code {@code (seats[i / 4] >> (2 * (i % 4))) & 3}: 0 is AVAILABLE,
+ * 1 is SELECTED, 2 is BOOKED and 3 marks a position without a seat. In JSON
+ * the packed bytes are base64-encoded.</p>
+ * 
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Seat map with two bits per seat")
+public class CompactSeatsResponse {
+    
+    @Schema(description = "Showtime ID", example = "550e8400-e29b-41d4-a716-446655440000")
+    private String showtimeId;
+    
+    @Schema(description = "Theatre ID", example = "550e8400-e29b-41d4-a716-446655440000")
+    private String theatreId;
+    
+    @Schema(description = "Number of rows", example = "10")
+    private Integer rows;
+    
+    @Schema(description = "Seats in each row", example = "12")
+    private Integer seatsPerRow;
+    
+    @Schema(description = "Row labels, front to back", example = "[\"A\", \"B\"]")
+    private List<String> rowLabels;
+    
+    @Schema(description = "Seat numbers that an aisle follows", example = "[4, 8]")
+    private List<Integer> aisles;
+    
+    @Schema(description = "Seat map version", example = "42")
+    private Long version;
+    
+    @Schema(description = "Base64 of the packed 2-bit seat statuses", example = "AAAAgAIAAAA=")
+    private byte[] seats;
+}
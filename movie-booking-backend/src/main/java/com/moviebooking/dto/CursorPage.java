@@ -0,0 +1,34 @@
+package com.moviebooking.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One page of a keyset-paginated listing.
+ *
+ * @param <T> the type of the listed documents
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPage<T> {
+
+    /**
+     * Documents of this page, in ID order.
+     */
+    private List<T> items;
+
+    /**
+     * Value to pass as {@code after} to get the next page, or null if this is the last page.
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,51 @@
+package com.moviebooking.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import com.moviebooking.models.Movie;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for faceted movie filter results.
+ * 
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Filtered movies with facet counts")
+public class MovieFacetResponse {
+    
+    /**
+     * Number of movies matching every filter.
+     */
+    @Schema(description = "Total matching movies", example = "42")
+    private Integer total;
+    
+    /**
+     * The requested page of matching movies, newest release first.
+     */
+    @Schema(description = "Matching movies")
+    private List<Movie> movies;
+    
+    /**
+     * Matching movies per genre, ignoring the genre filter itself.
+     */
+    @Schema(description = "Movie count per genre", example = "{\"Action\": 12, \"Drama\": 7}")
+    private Map<String, Integer> genres;
+    
+    /**
+     * Matching movies per language, ignoring the language filter itself.
+     */
+    @Schema(description = "Movie count per language", example = "{\"English\": 15, \"Hindi\": 4}")
+    private Map<String, Integer> languages;
+}
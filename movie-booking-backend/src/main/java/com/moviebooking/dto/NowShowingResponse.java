@@ -0,0 +1,58 @@
+package com.moviebooking.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.moviebooking.models.Movie;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the movies showing in one city on one day.
+ * 
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Movies showing in a city on a day")
+public class NowShowingResponse {
+    
+    /**
+     * Day of the showtimes.
+     */
+    @Schema(description = "Show date", example = "2024-06-01")
+    private LocalDate date;
+    
+    /**
+     * City of the theatres, as given in their location.
+     */
+    @Schema(description = "City", example = "Mumbai")
+    private String city;
+    
+    /**
+     * Movies with showtimes left that day, earliest showtime first.
+     */
+    @Schema(description = "Movies showing")
+    private List<NowShowingMovie> movies;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class NowShowingMovie {
+        private Movie movie;
+        private String firstShowtimeId;
+        private LocalDateTime firstShowDate;
+        private Double minPrice;
+        private Integer showtimes;
+    }
+}
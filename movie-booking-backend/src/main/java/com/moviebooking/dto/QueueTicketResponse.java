@@ -0,0 +1,52 @@
+package com.moviebooking.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for waiting room queue responses.
+ * 
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Waiting room queue ticket")
+public class QueueTicketResponse {
+    
+    /**
+     * Signed queue token to send in the X-Queue-Token header.
+     */
+    @Schema(description = "Queue token")
+    private String token;
+    
+    /**
+     * ID of the showtime being queued for.
+     */
+    @Schema(description = "Showtime ID", example = "550e8400-e29b-41d4-a716-446655440000")
+    private String showtimeId;
+    
+    /**
+     * Number of users admitted before this ticket.
+     */
+    @Schema(description = "Position in the queue", example = "42")
+    private Long position;
+    
+    /**
+     * Estimated time until the ticket is admitted.
+     */
+    @Schema(description = "Estimated wait in seconds", example = "8")
+    private Long estimatedWaitSeconds;
+    
+    /**
+     * Whether the ticket is already admitted.
+     */
+    @Schema(description = "Whether the holder may proceed to seat selection", example = "false")
+    private Boolean admitted;
+}
@@ -0,0 +1,34 @@
+package com.moviebooking.dto;
+
+import java.util.List;
+
+import com.moviebooking.models.Seat;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for seat hold requests.
+ * 
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Seat hold request")
+public class SeatHoldRequest {
+    
+    /**
+     * List of seats to hold.
+     */
+    @NotEmpty
+    @Schema(description = "List of seats to hold", required = true)
+    private List<Seat> seats;
+}
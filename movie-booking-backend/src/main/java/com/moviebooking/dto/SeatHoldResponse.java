@@ -0,0 +1,51 @@
+package com.moviebooking.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.moviebooking.models.Seat;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for seat hold responses.
+ * 
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Seat hold response")
+public class SeatHoldResponse {
+    
+    /**
+     * Unique identifier for the hold.
+     */
+    @Schema(description = "Hold ID", example = "550e8400-e29b-41d4-a716-446655440000")
+    private String holdId;
+    
+    /**
+     * ID of the showtime the seats are held for.
+     */
+    @Schema(description = "Showtime ID", example = "550e8400-e29b-41d4-a716-446655440000")
+    private String showtimeId;
+    
+    /**
+     * Seats covered by the hold.
+     */
+    @Schema(description = "Held seats")
+    private List<Seat> seats;
+    
+    /**
+     * Time at which the hold is released automatically.
+     */
+    @Schema(description = "Hold expiry time", example = "2024-01-01T12:05:00.000Z")
+    private LocalDateTime expiresAt;
+}
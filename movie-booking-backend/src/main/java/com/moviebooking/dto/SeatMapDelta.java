@@ -0,0 +1,40 @@
+package com.moviebooking.dto;
+
+import java.util.List;
+
+import com.moviebooking.enums.SeatStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Seat changes streamed to seat map subscribers.
+ * 
+ * <p>{@code index} is the seat's grid position
+ * ({@code rowIndex * seatsPerRow + number - 1}), as in
+ * {@link CompactSeatsResponse}. When the theatre has gaps this is not the
+ * seat's position in {@link SeatsResponse#getSeats()}. Clients apply changes
+ * in order and may skip events whose version is not newer than their snapshot.</p>
+ * 
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SeatMapDelta {
+    private Long version;
+    private List<SeatChange> changes;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SeatChange {
+        private Integer index;
+        private SeatStatus status;
+    }
+}
@@ -17,5 +17,6 @@ public class SeatsResponse {
     private String showtimeId;
     private TheatreResponse theatre;
     private List<Seat> seats;
+    private Long version;
 }
 
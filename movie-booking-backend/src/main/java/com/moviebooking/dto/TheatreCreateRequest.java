@@ -1,5 +1,7 @@
 package com.moviebooking.dto;
 
+import java.util.List;
+
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
@@ -26,5 +28,11 @@ public class TheatreCreateRequest {
     
     @Positive
     private Integer seatsPerRow;
+    
+    private List<String> rowLabels;
+    
+    private List<Integer> aisles;
+    
+    private List<String> gaps;
 }
 
@@ -1,5 +1,7 @@
 package com.moviebooking.dto;
 
+import java.util.List;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,5 +18,7 @@ public class TheatreResponse {
     private Integer totalSeats;
     private Integer rows;
     private Integer seatsPerRow;
+    private List<String> rowLabels;
+    private List<Integer> aisles;
 }
 
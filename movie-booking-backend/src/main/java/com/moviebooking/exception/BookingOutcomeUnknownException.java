@@ -0,0 +1,19 @@
+package com.moviebooking.exception;
+
+/**
+ * Thrown when a booking write may or may not have taken effect, for example
+ * because MongoDB failed mid-write or the request gave up waiting for it.
+ *
+ * <p>Answered with 503 like {@link ServiceUnavailableException}, but callers
+ * must not treat the booking as never made: an idempotency key stays claimed
+ * so that a retry cannot book a second time.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class BookingOutcomeUnknownException extends ServiceUnavailableException {
+    public BookingOutcomeUnknownException(String message) {
+        super(message);
+    }
+}
@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import jakarta.validation.constraints.NotBlank;
@@ -24,6 +25,9 @@ import lombok.NoArgsConstructor;
  * <p>Bookings are the core transaction entities that record when users
  * reserve seats for movie screenings.</p>
  * 
+ * <p>The {@code (showtimeId, status)} index serves the confirmed-seats query
+ * used to rebuild a showtime's seat inventory.</p>
+ * 
  * @author Movie Booking Team
  * @version 1.0.0
  * @since 2024-01-01
@@ -33,6 +37,7 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @Builder
 @Document(collection = "bookings")
+@CompoundIndex(name = "showtimeId_status", def = "{'showtimeId': 1, 'status': 1}")
 public class Booking {
     
     /**
@@ -0,0 +1,47 @@
+package com.moviebooking.models;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Stored result of a booking request made with an {@code Idempotency-Key} header.
+ *
+ * <p>Records are keyed by user and key, so two users can pick the same key
+ * without seeing each other's bookings. They are removed by a TTL index on
+ * {@code createdAt} once the configured retention has passed.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+
+    /**
+     * Composite identifier made of the user ID and the idempotency key.
+     */
+    @Id
+    private String id;
+
+    /**
+     * The booking created by the original request.
+     */
+    private Booking booking;
+
+    /**
+     * Timestamp when the original request completed.
+     */
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,41 @@
+package com.moviebooking.models;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cluster-wide request count of one rate limit bucket.
+ *
+ * <p>Each node adds the requests it let through to {@code count}; the
+ * difference between two reads, less its own additions, is what the other
+ * nodes used in between. Counters are removed by a TTL index once
+ * {@code expiresAt} passes, which is pushed forward on every write.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "rate_limit_counters")
+public class RateLimitCounter {
+
+    /** Policy name and client, e.g. {@code login:ip:203.0.113.7}. */
+    @Id
+    private String id;
+
+    private long count;
+
+    @Indexed(name = "expiresAt_ttl", expireAfterSeconds = 0)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,66 @@
+package com.moviebooking.models;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Temporary reservation of seats by a user for a showtime.
+ *
+ * <p>Held seats are reported as {@code SELECTED} and cannot be booked by
+ * other users until the hold is released, consumed by a booking, or expires.
+ * Holds are kept in memory only and are not persisted.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SeatHold {
+
+    /**
+     * Unique identifier for the hold.
+     */
+    private String id;
+
+    /**
+     * Reference to the showtime the seats are held for.
+     */
+    private String showtimeId;
+
+    /**
+     * Reference to the user holding the seats.
+     */
+    private String userId;
+
+    /**
+     * Seats covered by the hold.
+     */
+    private List<Seat> seats;
+
+    /**
+     * Seat bit indexes in the showtime's seat inventory, matching {@code seats}.
+     */
+    private int[] seatIndexes;
+
+    /**
+     * Time at which the hold is released automatically.
+     */
+    private LocalDateTime expiresAt;
+
+    /**
+     * Checks whether the hold has expired.
+     *
+     * @return true if the expiry time has passed, false otherwise
+     */
+    public boolean isExpired() {
+        return !LocalDateTime.now().isBefore(this.expiresAt);
+    }
+}
@@ -0,0 +1,151 @@
+package com.moviebooking.models;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Packed seat inventory for a single showtime.
+ *
+ * <p>Every seat of the theatre maps to one bit of the {@code booked} bitmap at
+ * index {@code rowIndex * seatsPerRow + (number - 1)}. A set bit means the seat
+ * is booked. The inventory is embedded in the {@link Showtime} document so that
+ * availability checks never have to rescan booking documents.</p>
+ *
+ * <p>The inventory only knows the grid. Row labels, aisles and positions
+ * without a seat come from the theatre's {@link SeatLayoutTemplate}, which
+ * maps seats to bit indexes. Default row labels are spreadsheet-style: "A".."Z",
+ * then "AA", "AB", and so on.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SeatInventory {
+
+    /**
+     * Number of rows in the theatre layout.
+     */
+    private Integer rows;
+
+    /**
+     * Number of seats in each row.
+     */
+    private Integer seatsPerRow;
+
+    /**
+     * Bitmap of booked seats, 64 seats per word.
+     */
+    private long[] booked;
+
+    /**
+     * Creates an empty inventory sized for the given theatre.
+     *
+     * @param theatre the theatre whose layout defines the inventory
+     * @return an inventory with every seat available
+     */
+    public static SeatInventory forTheatre(Theatre theatre) {
+        int capacity = theatre.getRows() * theatre.getSeatsPerRow();
+        return SeatInventory.builder()
+                .rows(theatre.getRows())
+                .seatsPerRow(theatre.getSeatsPerRow())
+                .booked(new long[wordCount(capacity)])
+                .build();
+    }
+
+    /**
+     * Gets the number of seats covered by this inventory.
+     *
+     * @return rows multiplied by seats per row
+     */
+    public int capacity() {
+        return this.rows * this.seatsPerRow;
+    }
+
+    /**
+     * Checks whether the seat at the given index is booked.
+     *
+     * @param index the seat bit index
+     * @return true if the seat is booked, false otherwise
+     */
+    public boolean isBooked(int index) {
+        return (this.booked[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Marks the seat at the given index as booked.
+     *
+     * @param index the seat bit index
+     */
+    public void book(int index) {
+        this.booked[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Marks the seat at the given index as available again.
+     *
+     * @param index the seat bit index
+     */
+    public void release(int index) {
+        this.booked[index >>> 6] &= ~(1L << index);
+    }
+
+    /**
+     * Counts the booked seats in this inventory.
+     *
+     * @return the number of set bits in the bitmap
+     */
+    public int bookedCount() {
+        int count = 0;
+        for (long word : this.booked) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Groups seat bit indexes by bitmap word.
+     *
+     * @param indexes the seat bit indexes
+     * @return a map from word offset to the mask of seats in that word, ordered by offset
+     */
+    public static Map<Integer, Long> wordMasks(int[] indexes) {
+        Map<Integer, Long> masks = new TreeMap<>();
+        for (int index : indexes) {
+            masks.merge(index >>> 6, 1L << index, (a, b) -> a | b);
+        }
+        return masks;
+    }
+
+    /**
+     * Gets the number of 64-bit words needed to hold the given number of seats.
+     *
+     * @param capacity the number of seats
+     * @return the number of bitmap words
+     */
+    public static int wordCount(int capacity) {
+        return (capacity + 63) >>> 6;
+    }
+
+    /**
+     * Converts a zero-based row index to its row label ("A".."Z", "AA", ...).
+     *
+     * @param index the row index
+     * @return the row label
+     */
+    public static String rowLabel(int index) {
+        StringBuilder label = new StringBuilder();
+        for (int n = index + 1; n > 0; n = (n - 1) / 26) {
+            label.insert(0, (char) ('A' + (n - 1) % 26));
+        }
+        return label.toString();
+    }
+}
@@ -0,0 +1,312 @@
+package com.moviebooking.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.moviebooking.enums.SeatStatus;
+
+/**
+ * Immutable seat layout of a theatre, compiled once and shared by all of its showtimes.
+ *
+ * <p>The layout covers the same {@code rows x seatsPerRow} grid as the
+ * {@link SeatInventory} bitmap, and a seat at grid position
+ * {@code rowIndex * seatsPerRow + (number - 1)} uses that bit. On top of the
+ * grid the template adds:</p>
+ * <ul>
+ *   <li>row labels, defaulting to "A".."Z", "AA", ...</li>
+ *   <li>aisles, given as the seat numbers that an aisle follows</li>
+ *   <li>gaps, grid positions that have no seat</li>
+ * </ul>
+ *
+ * <p>All layout data is held in flat arrays. The {@link Seat} objects for
+ * every position and status are built once, so rendering a seat map only
+ * picks prebuilt seats according to the booking bitmap. The shared seats
+ * must not be modified.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class SeatLayoutTemplate {
+
+    private static final Pattern SEAT_IDENTIFIER = Pattern.compile("(.+?)(\\d+)");
+    private static final SeatStatus[] STATUSES = SeatStatus.values();
+
+    private final String theatreId;
+    private final int rows;
+    private final int seatsPerRow;
+    private final String[] rowLabels;
+    private final Map<String, Integer> rowIndexes;
+    private final int[] aisles;
+    private final long[] aisleBreaks;
+    private final long[] gaps;
+    private final int seatCount;
+
+    /** Prebuilt seats indexed by status ordinal, then seat index; null at gaps. */
+    private final Seat[][] seats;
+
+    private SeatLayoutTemplate(String theatreId, int rows, int seatsPerRow, String[] rowLabels,
+                               int[] aisles, long[] gaps) {
+        this.theatreId = theatreId;
+        this.rows = rows;
+        this.seatsPerRow = seatsPerRow;
+        this.rowLabels = rowLabels;
+        this.aisles = aisles;
+        this.gaps = gaps;
+
+        this.rowIndexes = new HashMap<>(rows * 2);
+        for (int i = 0; i < rows; i++) {
+            if (this.rowIndexes.put(rowLabels[i].toUpperCase(Locale.ROOT), i) != null) {
+                throw new IllegalArgumentException("Row label " + rowLabels[i] + " is used more than once");
+            }
+        }
+
+        this.aisleBreaks = new long[SeatInventory.wordCount(seatsPerRow)];
+        for (int aisle : aisles) {
+            // The aisle runs between seat number "aisle" (position aisle - 1) and the next one
+            this.aisleBreaks[(aisle - 1) >>> 6] |= 1L << (aisle - 1);
+        }
+
+        int capacity = rows * seatsPerRow;
+        this.seats = new Seat[STATUSES.length][capacity];
+        int count = 0;
+        for (int index = 0; index < capacity; index++) {
+            if (isGap(index)) {
+                continue;
+            }
+            count++;
+            String row = rowLabels[index / seatsPerRow];
+            int number = index % seatsPerRow + 1;
+            for (SeatStatus status : STATUSES) {
+                this.seats[status.ordinal()][index] = Seat.builder()
+                        .row(row)
+                        .number(number)
+                        .status(status)
+                        .build();
+            }
+        }
+        this.seatCount = count;
+    }
+
+    /**
+     * Compiles the layout of a theatre.
+     *
+     * @param theatre the theatre to compile
+     * @return the compiled template
+     * @throws IllegalArgumentException if the row labels, aisles or gaps do not fit the theatre
+     */
+    public static SeatLayoutTemplate compile(Theatre theatre) {
+        if (theatre.getRows() == null || theatre.getSeatsPerRow() == null
+                || theatre.getRows() < 1 || theatre.getSeatsPerRow() < 1) {
+            throw new IllegalArgumentException("Rows and seats per row must be positive");
+        }
+        int rows = theatre.getRows();
+        int seatsPerRow = theatre.getSeatsPerRow();
+
+        String[] rowLabels = new String[rows];
+        List<String> customLabels = theatre.getRowLabels();
+        if (customLabels != null && !customLabels.isEmpty()) {
+            if (customLabels.size() != rows) {
+                throw new IllegalArgumentException("Expected " + rows + " row labels but got " + customLabels.size());
+            }
+            for (int i = 0; i < rows; i++) {
+                String label = customLabels.get(i);
+                if (label == null || label.isBlank()) {
+                    throw new IllegalArgumentException("Row labels must not be blank");
+                }
+                rowLabels[i] = label.trim();
+            }
+        } else {
+            for (int i = 0; i < rows; i++) {
+                rowLabels[i] = SeatInventory.rowLabel(i);
+            }
+        }
+
+        int[] aisles = theatre.getAisles() == null ? new int[0]
+                : theatre.getAisles().stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        for (int aisle : aisles) {
+            if (aisle < 1 || aisle >= seatsPerRow) {
+                throw new IllegalArgumentException("Aisle after seat " + aisle + " is outside the row");
+            }
+        }
+
+        long[] gaps = new long[SeatInventory.wordCount(rows * seatsPerRow)];
+        if (theatre.getGaps() != null) {
+            Map<String, Integer> rowIndexes = new HashMap<>(rows * 2);
+            for (int i = 0; i < rows; i++) {
+                rowIndexes.put(rowLabels[i].toUpperCase(Locale.ROOT), i);
+            }
+            for (String identifier : theatre.getGaps()) {
+                Matcher matcher = SEAT_IDENTIFIER.matcher(identifier == null ? "" : identifier.trim());
+                Integer rowIndex = matcher.matches() ? rowIndexes.get(matcher.group(1).toUpperCase(Locale.ROOT)) : null;
+                int number = rowIndex != null ? parseNumber(matcher.group(2)) : -1;
+                if (number < 1 || number > seatsPerRow) {
+                    throw new IllegalArgumentException("Gap " + identifier + " is not a seat of this theatre");
+                }
+                int index = rowIndex * seatsPerRow + (number - 1);
+                gaps[index >>> 6] |= 1L << index;
+            }
+        }
+        return new SeatLayoutTemplate(theatre.getId(), rows, seatsPerRow, rowLabels, aisles, gaps);
+    }
+
+    /**
+     * Resolves a seat to its bit index.
+     *
+     * @param seat the seat to resolve
+     * @return the bit index, or -1 if the seat is not part of this layout
+     */
+    public int indexOf(Seat seat) {
+        if (seat == null) {
+            return -1;
+        }
+        return indexOf(seat.getRow(), seat.getNumber());
+    }
+
+    /**
+     * Resolves a row label and seat number to a bit index.
+     *
+     * @param row the row label, matched case-insensitively
+     * @param number the seat number within the row
+     * @return the bit index, or -1 if there is no such seat
+     */
+    public int indexOf(String row, Integer number) {
+        if (row == null || number == null || number < 1 || number > seatsPerRow) {
+            return -1;
+        }
+        Integer rowIndex = rowIndexes.get(row.trim().toUpperCase(Locale.ROOT));
+        if (rowIndex == null) {
+            return -1;
+        }
+        int index = rowIndex * seatsPerRow + (number - 1);
+        return isGap(index) ? -1 : index;
+    }
+
+    /**
+     * Checks whether a grid position has no seat.
+     *
+     * @param index the grid position
+     * @return true if the position is a gap, false otherwise
+     */
+    public boolean isGap(int index) {
+        return (gaps[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Gets the prebuilt seat at a grid position.
+     *
+     * @param index the seat bit index
+     * @param status the status the seat should carry
+     * @return the shared seat, or null if the position is a gap
+     */
+    public Seat seatAt(int index, SeatStatus status) {
+        return seats[status.ordinal()][index];
+    }
+
+    /**
+     * Renders the seat map of a showtime by merging this layout with its booking and hold bitmaps.
+     *
+     * @param inventory the showtime's seat inventory
+     * @param held seat indexes currently held
+     * @return the seats in row order, without gaps
+     */
+    public List<Seat> render(SeatInventory inventory, BitSet held) {
+        Seat[] available = seats[SeatStatus.AVAILABLE.ordinal()];
+        Seat[] selected = seats[SeatStatus.SELECTED.ordinal()];
+        Seat[] booked = seats[SeatStatus.BOOKED.ordinal()];
+
+        Seat[] rendered = new Seat[seatCount];
+        int n = 0;
+        for (int index = 0; index < available.length; index++) {
+            if (available[index] == null) {
+                continue;
+            }
+            if (inventory.isBooked(index)) {
+                rendered[n++] = booked[index];
+            } else if (held.get(index)) {
+                rendered[n++] = selected[index];
+            } else {
+                rendered[n++] = available[index];
+            }
+        }
+        return Arrays.asList(rendered);
+    }
+
+    public String getTheatreId() {
+        return theatreId;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getSeatsPerRow() {
+        return seatsPerRow;
+    }
+
+    /**
+     * Gets the number of real seats, excluding gaps.
+     *
+     * @return the seat count
+     */
+    public int getSeatCount() {
+        return seatCount;
+    }
+
+    /**
+     * Gets the label of a row.
+     *
+     * @param rowIndex the zero-based row index
+     * @return the row label
+     */
+    public String getRowLabel(int rowIndex) {
+        return rowLabels[rowIndex];
+    }
+
+    public List<String> getRowLabels() {
+        return Collections.unmodifiableList(Arrays.asList(rowLabels));
+    }
+
+    public List<Integer> getAisles() {
+        List<Integer> result = new ArrayList<>(aisles.length);
+        for (int aisle : aisles) {
+            result.add(aisle);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Gets the row-width bitmap of aisle positions; bit {@code p} is set if an
+     * aisle runs between positions {@code p} and {@code p + 1}. Must not be modified.
+     *
+     * @return the aisle bitmap
+     */
+    public long[] getAisleBreaks() {
+        return aisleBreaks;
+    }
+
+    /**
+     * Gets the bitmap of grid positions that have no seat. Must not be modified.
+     *
+     * @return the gap bitmap, in the same layout as {@link SeatInventory#getBooked()}
+     */
+    public long[] getGaps() {
+        return gaps;
+    }
+
+    private static int parseNumber(String digits) {
+        try {
+            return Integer.parseInt(digits);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -4,8 +4,11 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -33,6 +36,8 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @Builder
 @Document(collection = "showtimes")
+@CompoundIndex(name = "movieId_showDate", def = "{'movieId': 1, 'showDate': 1, '_id': 1}")
+@CompoundIndex(name = "theatreId_showDate", def = "{'theatreId': 1, 'showDate': 1, '_id': 1}")
 public class Showtime {
     
     /**
@@ -75,6 +80,21 @@ public class Showtime {
     @PositiveOrZero
     private Integer availableSeats;
     
+    /**
+     * Packed bitmap of booked seats for this showtime.
+     * Built from the theatre layout when the showtime is created and
+     * updated as seats are booked and released. Not exposed in API responses.
+     */
+    @JsonIgnore
+    private SeatInventory seatInventory;
+    
+    /**
+     * Counter incremented by every update of the seat inventory.
+     * Seat map ETags are derived from it, so they change on every node.
+     */
+    @JsonIgnore
+    private Long seatMapVersion;
+    
     /**
      * Timestamp when the showtime was created.
      * Auto-generated when a new showtime is saved.
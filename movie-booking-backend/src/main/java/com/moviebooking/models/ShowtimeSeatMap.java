@@ -0,0 +1,66 @@
+package com.moviebooking.models;
+
+import org.springframework.data.annotation.Id;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Read model holding everything needed to render a showtime's seat map.
+ *
+ * <p>Loaded in a single aggregation that joins the showtime with its theatre,
+ * so the seat map endpoint costs one round trip to MongoDB instead of one per
+ * collection.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ShowtimeSeatMap {
+
+    /**
+     * ID of the showtime.
+     */
+    @Id
+    private String id;
+
+    /**
+     * ID of the theatre where the movie is shown.
+     */
+    private String theatreId;
+
+    /**
+     * Number of available seats for this showtime.
+     */
+    private Integer availableSeats;
+
+    /**
+     * Packed booking state of every seat, or null if not built yet.
+     */
+    private SeatInventory seatInventory;
+
+    /**
+     * The showtime's theatre, or null if it no longer exists.
+     */
+    private Theatre theatre;
+
+    /**
+     * Gets the showtime part of this view.
+     *
+     * @return a showtime carrying the seat-related fields only
+     */
+    public Showtime toShowtime() {
+        return Showtime.builder()
+                .id(this.id)
+                .theatreId(this.theatreId)
+                .availableSeats(this.availableSeats)
+                .seatInventory(this.seatInventory)
+                .build();
+    }
+}
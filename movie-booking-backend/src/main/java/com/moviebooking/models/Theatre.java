@@ -1,6 +1,7 @@
 package com.moviebooking.models;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.annotation.Id;
@@ -20,7 +21,9 @@ import lombok.NoArgsConstructor;
  * location, seating capacity, and layout configuration.</p>
  * 
  * <p>The theatre layout is defined by the number of rows and seats per row,
- * which helps in seat management and booking operations.</p>
+ * which helps in seat management and booking operations. Optional row labels,
+ * aisles and gaps refine the layout; they are compiled once into a
+ * {@link SeatLayoutTemplate} shared by all showtimes of the theatre.</p>
  * 
  * @author Movie Booking Team
  * @version 1.0.0
@@ -71,6 +74,23 @@ public class Theatre {
     @Positive
     private Integer seatsPerRow;
     
+    /**
+     * Labels of the rows, front to back.
+     * Defaults to "A".."Z", "AA", ... when not set.
+     */
+    private List<String> rowLabels;
+    
+    /**
+     * Seat numbers that an aisle follows, e.g. 4 for an aisle between seats 4 and 5.
+     * Seats on either side of an aisle are not adjacent.
+     */
+    private List<Integer> aisles;
+    
+    /**
+     * Identifiers of grid positions that have no seat, e.g. "A1".
+     */
+    private List<String> gaps;
+    
     /**
      * Timestamp when the theatre was added to the system.
      * Auto-generated when a new theatre is saved.
@@ -79,6 +79,13 @@ public class User {
     @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
     
+    /**
+     * Tokens issued before this time are no longer accepted.
+     * Set when the user logs out everywhere; null if no token was ever revoked.
+     */
+    @Indexed(sparse = true)
+    private LocalDateTime tokensValidAfter;
+    
     /**
      * Pre-persist method to generate UUID if not set.
      * This ensures every user has a unique identifier.
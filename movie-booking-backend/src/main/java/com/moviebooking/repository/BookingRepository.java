@@ -8,7 +8,6 @@ import org.springframework.stereotype.Repository;
 import com.moviebooking.models.Booking;
 
 @Repository
-public interface BookingRepository extends MongoRepository<Booking, String> {
+public interface BookingRepository extends MongoRepository<Booking, String>, BookingRepositoryCustom {
     List<Booking> findByUserId(String userId);
-    List<Booking> findByShowtimeId(String showtimeId);
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.moviebooking.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.moviebooking.models.Booking;
+import com.moviebooking.models.Seat;
+
+/**
+ * Custom booking operations that need server-side atomic updates or projections.
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface BookingRepositoryCustom {
+
+    /**
+     * Atomically moves a booking from "confirmed" to "cancelled".
+     *
+     * @param bookingId the booking to cancel
+     * @return the cancelled booking, or empty if it was not confirmed
+     */
+    Optional<Booking> cancelIfConfirmed(String bookingId);
+
+    /**
+     * Inserts a batch of new bookings in one unordered bulk operation.
+     *
+     * <p>A booking that fails to insert does not stop the others. Errors that
+     * are not per-booking write errors, such as a lost connection, are thrown,
+     * and then any subset of the batch may have been written.</p>
+     *
+     * @param newBookings bookings to insert
+     * @return IDs of the bookings that were rejected by the server
+     */
+    List<String> saveBatch(List<Booking> newBookings);
+
+    /**
+     * Lists the seats of every confirmed booking of a showtime.
+     *
+     * <p>Only the {@code seats} field is read, through the
+     * {@code (showtimeId, status)} index.</p>
+     *
+     * @param showtimeId the showtime whose booked seats to list
+     * @return the booked seats, in no particular order
+     */
+    List<Seat> findConfirmedSeats(String showtimeId);
+}
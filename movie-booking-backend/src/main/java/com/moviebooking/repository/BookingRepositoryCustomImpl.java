@@ -0,0 +1,96 @@
+package com.moviebooking.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.moviebooking.models.Booking;
+import com.moviebooking.models.Seat;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link MongoTemplate} implementation of {@link BookingRepositoryCustom}.
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@RequiredArgsConstructor
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<Booking> cancelIfConfirmed(String bookingId) {
+        Query query = Query.query(Criteria.where("_id").is(bookingId).and("status").is("confirmed"));
+        Update update = Update.update("status", "cancelled");
+
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Booking.class));
+    }
+
+    @Override
+    public List<String> saveBatch(List<Booking> newBookings) {
+        if (newBookings.isEmpty()) {
+            return List.of();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Booking.class);
+        bulk.insert(newBookings);
+        try {
+            bulk.execute();
+            return List.of();
+        } catch (DataAccessException e) {
+            List<BulkWriteError> errors = writeErrors(e);
+            if (errors == null) {
+                throw e;
+            }
+            List<String> failedIds = new ArrayList<>(errors.size());
+            for (BulkWriteError error : errors) {
+                failedIds.add(newBookings.get(error.getIndex()).getId());
+            }
+            return failedIds;
+        }
+    }
+
+    /**
+     * Gets the per-document errors of a failed bulk write, or null if the whole write failed.
+     * Duplicate keys arrive as a {@link DuplicateKeyException} wrapping the bulk error.
+     */
+    private static List<BulkWriteError> writeErrors(DataAccessException e) {
+        if (e instanceof BulkOperationException bulkError) {
+            return bulkError.getErrors();
+        }
+        if (e.getCause() instanceof MongoBulkWriteException bulkError) {
+            return bulkError.getWriteErrors();
+        }
+        return null;
+    }
+
+    @Override
+    public List<Seat> findConfirmedSeats(String showtimeId) {
+        Query query = Query.query(Criteria.where("showtimeId").is(showtimeId).and("status").is("confirmed"));
+        query.fields().include("seats").exclude("_id");
+
+        List<Seat> seats = new ArrayList<>();
+        for (Booking booking : mongoTemplate.find(query, Booking.class)) {
+            if (booking.getSeats() != null) {
+                seats.addAll(booking.getSeats());
+            }
+        }
+        return seats;
+    }
+}
@@ -0,0 +1,33 @@
+package com.moviebooking.repository;
+
+import java.time.Duration;
+
+/**
+ * Custom idempotency record operations.
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface IdempotencyRecordRepositoryCustom {
+
+    /**
+     * Creates the TTL index that removes records once they are older than the retention.
+     *
+     * @param retention how long records are kept
+     */
+    void ensureExpiryIndex(Duration retention);
+
+    /**
+     * Claims a key for the request about to create its booking.
+     *
+     * <p>Inserts a record without booking, relying on the unique {@code _id}.
+     * A claim whose request never completed, for example because its node
+     * stopped, can be taken over once it is older than {@code staleAfter}.</p>
+     *
+     * @param id the record ID
+     * @param staleAfter how long an unfinished claim blocks the key
+     * @return true if this request now holds the claim, false if the key is taken
+     */
+    boolean claim(String id, Duration staleAfter);
+}
@@ -0,0 +1,55 @@
+package com.moviebooking.repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.moviebooking.models.IdempotencyRecord;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link MongoTemplate} implementation of {@link IdempotencyRecordRepositoryCustom}.
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@RequiredArgsConstructor
+public class IdempotencyRecordRepositoryCustomImpl implements IdempotencyRecordRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void ensureExpiryIndex(Duration retention) {
+        mongoTemplate.indexOps(IdempotencyRecord.class).ensureIndex(new Index()
+                .on("createdAt", Sort.Direction.ASC)
+                .named("createdAt_ttl")
+                .expire(retention));
+    }
+
+    @Override
+    public boolean claim(String id, Duration staleAfter) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            mongoTemplate.insert(IdempotencyRecord.builder()
+                    .id(id)
+                    .createdAt(now)
+                    .build());
+            return true;
+        } catch (DuplicateKeyException e) {
+            Query stale = Query.query(Criteria.where("_id").is(id)
+                    .and("booking").is(null)
+                    .and("createdAt").lt(now.minus(staleAfter)));
+            return mongoTemplate.updateFirst(stale, Update.update("createdAt", now), IdempotencyRecord.class)
+                    .getModifiedCount() == 1;
+        }
+    }
+}
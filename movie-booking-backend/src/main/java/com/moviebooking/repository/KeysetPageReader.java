@@ -0,0 +1,234 @@
+package com.moviebooking.repository;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Field;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.moviebooking.dto.CursorPage;
+import com.moviebooking.exception.BadRequestException;
+
+import org.bson.types.ObjectId;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Reads catalog collections in {@code _id} order, a page or a cursor at a time.
+ *
+ * <p>Pages use keyset pagination: the next page starts after the last ID of
+ * the previous one, so every page is a bounded range scan of the {@code _id}
+ * index no matter how deep the client pages. IDs are stored as ObjectIds when
+ * they look like one and as strings otherwise, and MongoDB orders all strings
+ * before all ObjectIds, so a string cursor also lets every ObjectId through.</p>
+ *
+ * <p>Pages may instead be ordered by a date-time property, with {@code _id}
+ * breaking ties. The cursor then carries both, as {@code <date-time>_<id>},
+ * and a compound index ending in that property and {@code _id} turns each page
+ * into a bounded range scan again.</p>
+ *
+ * <p>A sparse fieldset is pushed down as a projection so that unrequested
+ * fields never leave the server. Properties that are never serialized to
+ * clients ({@link JsonIgnore}) are always projected out.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+@RequiredArgsConstructor
+public class KeysetPageReader {
+
+    /**
+     * Largest page a client may ask for.
+     */
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final char CURSOR_SEPARATOR = '_';
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Reads one page of documents in ID order.
+     *
+     * @param type the document type
+     * @param filter criteria every document must match, or null for all documents
+     * @param after the ID after which the page starts, or null for the first page
+     * @param limit the maximum number of documents in the page
+     * @param fields the properties to return besides the ID, or null for all
+     * @param <T> the document type
+     * @return the page, with the cursor of the next page if there is one
+     * @throws BadRequestException if the limit is out of range or a field does not exist
+     */
+    public <T> CursorPage<T> findPage(Class<T> type, Criteria filter, String after, int limit, Set<String> fields) {
+        return findPage(type, filter, null, after, limit, fields);
+    }
+
+    /**
+     * Reads one page of documents ordered by a date-time property, then by ID.
+     *
+     * @param type the document type
+     * @param filter criteria every document must match, or null for all documents
+     * @param orderBy the {@link LocalDateTime} property to order by, or null for ID order
+     * @param after the cursor after which the page starts, or null for the first page
+     * @param limit the maximum number of documents in the page
+     * @param fields the properties to return besides the ID, or null for all
+     * @param <T> the document type
+     * @return the page, with the cursor of the next page if there is one
+     * @throws BadRequestException if the limit or cursor is invalid or a field does not exist
+     */
+    public <T> CursorPage<T> findPage(Class<T> type, Criteria filter, String orderBy, String after,
+                                      int limit, Set<String> fields) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        MongoPersistentEntity<?> entity = persistentEntity(type);
+        MongoPersistentProperty orderProperty = orderProperty(entity, orderBy);
+
+        Query query = query(entity, filter, orderProperty, fields);
+        if (after != null && !after.isEmpty()) {
+            if (orderProperty == null) {
+                query.addCriteria(afterId(after));
+            } else {
+                int separator = after.indexOf(CURSOR_SEPARATOR);
+                LocalDateTime value = separator > 0 ? parseDateTime(after.substring(0, separator)) : null;
+                if (value == null) {
+                    throw new BadRequestException("Invalid cursor: " + after);
+                }
+                String field = orderProperty.getFieldName();
+                query.addCriteria(new Criteria().orOperator(
+                        Criteria.where(field).gt(value),
+                        new Criteria().andOperator(
+                                Criteria.where(field).is(value),
+                                afterId(after.substring(separator + 1)))));
+            }
+        }
+        // One extra document tells whether there is a next page
+        query.limit(limit + 1);
+
+        List<T> items = new ArrayList<>(mongoTemplate.find(query, type));
+        String nextCursor = null;
+        if (items.size() > limit) {
+            items.remove(limit);
+            T last = items.get(limit - 1);
+            String lastId = String.valueOf(entity.getIdentifierAccessor(last).getIdentifier());
+            if (orderProperty == null) {
+                nextCursor = lastId;
+            } else {
+                Object lastValue = entity.getPropertyAccessor(last).getProperty(orderProperty);
+                nextCursor = String.valueOf(lastValue) + CURSOR_SEPARATOR + lastId;
+            }
+        }
+        return CursorPage.<T>builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Opens a cursor over all matching documents in ID order. The caller must close the stream.
+     *
+     * @param type the document type
+     * @param filter criteria every document must match, or null for all documents
+     * @param fields the properties to return besides the ID, or null for all
+     * @param <T> the document type
+     * @return the documents in ID order, fetched from the server in batches as the stream is consumed
+     * @throws BadRequestException if a field does not exist
+     */
+    public <T> Stream<T> stream(Class<T> type, Criteria filter, Set<String> fields) {
+        return stream(type, filter, null, fields);
+    }
+
+    /**
+     * Opens a cursor over all matching documents ordered by a date-time property, then by ID.
+     * The caller must close the stream.
+     *
+     * @param type the document type
+     * @param filter criteria every document must match, or null for all documents
+     * @param orderBy the {@link LocalDateTime} property to order by, or null for ID order
+     * @param fields the properties to return besides the ID, or null for all
+     * @param <T> the document type
+     * @return the documents, fetched from the server in batches as the stream is consumed
+     * @throws BadRequestException if a field does not exist
+     */
+    public <T> Stream<T> stream(Class<T> type, Criteria filter, String orderBy, Set<String> fields) {
+        MongoPersistentEntity<?> entity = persistentEntity(type);
+        return mongoTemplate.stream(query(entity, filter, orderProperty(entity, orderBy), fields), type);
+    }
+
+    private Query query(MongoPersistentEntity<?> entity, Criteria filter, MongoPersistentProperty orderProperty,
+                        Set<String> fields) {
+        Query query = filter == null ? new Query() : Query.query(filter);
+        if (orderProperty != null) {
+            query.with(Sort.by(Sort.Direction.ASC, orderProperty.getName(), "_id"));
+        } else {
+            query.with(Sort.by(Sort.Direction.ASC, "_id"));
+        }
+
+        Field projection = query.fields();
+        if (fields == null || fields.isEmpty()) {
+            for (MongoPersistentProperty property : entity) {
+                if (property.isAnnotationPresent(JsonIgnore.class)) {
+                    projection.exclude(property.getName());
+                }
+            }
+            return query;
+        }
+        for (String field : fields) {
+            MongoPersistentProperty property = entity.getPersistentProperty(field);
+            if (property == null || property.isAnnotationPresent(JsonIgnore.class)) {
+                throw new BadRequestException("Unknown field: " + field);
+            }
+            projection.include(property.getName());
+        }
+        if (orderProperty != null) {
+            // Needed for the next cursor; the response writer trims it again
+            projection.include(orderProperty.getName());
+        }
+        return query;
+    }
+
+    private static Criteria afterId(String after) {
+        if (ObjectId.isValid(after)) {
+            return Criteria.where("_id").gt(new ObjectId(after));
+        }
+        return new Criteria().orOperator(
+                Criteria.where("_id").gt(after),
+                Criteria.where("_id").type(JsonSchemaObject.Type.OBJECT_ID));
+    }
+
+    private static MongoPersistentProperty orderProperty(MongoPersistentEntity<?> entity, String orderBy) {
+        if (orderBy == null) {
+            return null;
+        }
+        MongoPersistentProperty property = entity.getRequiredPersistentProperty(orderBy);
+        if (property.getType() != LocalDateTime.class) {
+            throw new IllegalArgumentException("Pages can only be ordered by a LocalDateTime property");
+        }
+        return property;
+    }
+
+    private static LocalDateTime parseDateTime(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private MongoPersistentEntity<?> persistentEntity(Class<?> type) {
+        return mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(type);
+    }
+}
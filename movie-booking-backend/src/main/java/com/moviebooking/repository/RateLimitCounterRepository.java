@@ -0,0 +1,10 @@
+package com.moviebooking.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.moviebooking.models.RateLimitCounter;
+
+@Repository
+public interface RateLimitCounterRepository extends MongoRepository<RateLimitCounter, String>, RateLimitCounterRepositoryCustom {
+}
@@ -0,0 +1,27 @@
+package com.moviebooking.repository;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Custom rate limit counter operations for sharing request counts between nodes.
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface RateLimitCounterRepositoryCustom {
+
+    /**
+     * Adds to a batch of counters, creating missing ones, and reads back their totals.
+     *
+     * <p>The additions go out as one unordered bulk write and the totals come
+     * back through one query, so a sync costs two round trips however many
+     * buckets it covers.</p>
+     *
+     * @param increments the requests to add, by counter ID
+     * @param expiresAt the earliest time the counters may be removed
+     * @return the total count, by counter ID
+     */
+    Map<String, Long> addCounts(Map<String, Long> increments, LocalDateTime expiresAt);
+}
@@ -0,0 +1,48 @@
+package com.moviebooking.repository;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.moviebooking.models.RateLimitCounter;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link MongoTemplate} implementation of {@link RateLimitCounterRepositoryCustom}.
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@RequiredArgsConstructor
+public class RateLimitCounterRepositoryCustomImpl implements RateLimitCounterRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Map<String, Long> addCounts(Map<String, Long> increments, LocalDateTime expiresAt) {
+        Map<String, Long> totals = new HashMap<>();
+        if (increments.isEmpty()) {
+            return totals;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RateLimitCounter.class);
+        increments.forEach((id, increment) -> bulk.upsert(Query.query(Criteria.where("_id").is(id)),
+                new Update().inc("count", increment).max("expiresAt", expiresAt)));
+        bulk.execute();
+
+        Query query = Query.query(Criteria.where("_id").in(increments.keySet()));
+        query.fields().include("count");
+        for (RateLimitCounter counter : mongoTemplate.find(query, RateLimitCounter.class)) {
+            totals.put(counter.getId(), counter.getCount());
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,81 @@
+package com.moviebooking.repository;
+
+import java.util.Map;
+import java.util.Optional;
+
+import com.moviebooking.models.SeatInventory;
+import com.moviebooking.models.Showtime;
+import com.moviebooking.models.ShowtimeSeatMap;
+
+/**
+ * Custom showtime operations that need server-side atomic updates or joins.
+ *
+ * <p>Each update is a single conditional {@code findAndModify}/{@code updateOne}
+ * so that concurrent requests on different nodes cannot lose updates to the
+ * seat inventory or the available seat counter.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface ShowtimeRepositoryCustom {
+
+    /**
+     * Atomically claims seats if every one of them is still free and the
+     * showtime has enough available seats.
+     *
+     * @param showtimeId the showtime to claim seats in
+     * @param seatIndexes the seat bit indexes to claim
+     * @return the updated showtime, or empty if any seat was taken or the showtime does not exist
+     */
+    Optional<Showtime> claimSeats(String showtimeId, int[] seatIndexes);
+
+    /**
+     * Atomically releases seats that are currently booked.
+     *
+     * @param showtimeId the showtime to release seats in
+     * @param seatIndexes the seat bit indexes to release
+     * @return true if the seats were released, false if any of them was not booked
+     */
+    boolean releaseSeats(String showtimeId, int[] seatIndexes);
+
+    /**
+     * Replaces bitmap words of a showtime's seat inventory if they still hold
+     * their expected values, and adjusts the available seat counter.
+     *
+     * <p>Used by single-writer batch processing, where one update commits the
+     * net effect of many bookings and cancellations.</p>
+     *
+     * @param showtimeId the showtime to update
+     * @param words map from word offset to a pair of {expected value, new value}
+     * @param availableSeatsDelta the change to apply to the available seat counter
+     * @return true if the words matched and were replaced, false otherwise
+     */
+    boolean compareAndSetSeatWords(String showtimeId, Map<Integer, long[]> words, int availableSeatsDelta);
+
+    /**
+     * Attaches a seat inventory to a showtime that does not have one yet.
+     *
+     * @param showtimeId the showtime to initialize
+     * @param inventory the inventory to attach
+     * @param availableSeats the number of seats still available in the inventory
+     * @return true if the inventory was attached, false if the showtime already had one
+     */
+    boolean initializeSeatInventory(String showtimeId, SeatInventory inventory, int availableSeats);
+
+    /**
+     * Reads a showtime's seat map version and nothing else.
+     *
+     * @param showtimeId the showtime to look up
+     * @return the version, 0 if it was never changed, or empty if the showtime does not exist
+     */
+    Optional<Long> findSeatMapVersion(String showtimeId);
+
+    /**
+     * Loads a showtime's seat state together with its theatre in one aggregation.
+     *
+     * @param showtimeId the showtime to load
+     * @return the seat map view, or empty if the showtime does not exist
+     */
+    Optional<ShowtimeSeatMap> findSeatMap(String showtimeId);
+}
@@ -0,0 +1,151 @@
+package com.moviebooking.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.moviebooking.models.SeatInventory;
+import com.moviebooking.models.Showtime;
+import com.moviebooking.models.ShowtimeSeatMap;
+import com.moviebooking.models.Theatre;
+
+import org.bson.Document;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link MongoTemplate} implementation of {@link ShowtimeRepositoryCustom}.
+ *
+ * <p>Seat state lives in {@code seatInventory.booked}, an array of 64-bit words.
+ * Claims filter each touched word with {@code $bitsAllClear} and flip it with
+ * {@code $bit}, together with an {@code $inc} on {@code availableSeats}, so the
+ * check and the write happen in one server-side operation. Every seat write
+ * also increments {@code seatMapVersion}.</p>
+ *
+ * <p>The seat map view joins the theatre with {@code $lookup}. Theatres saved
+ * with an ObjectId-shaped ID store {@code _id} as an ObjectId while showtimes
+ * keep {@code theatreId} as a string, so the lookup matches on both forms and
+ * still uses the {@code _id} index.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@RequiredArgsConstructor
+public class ShowtimeRepositoryCustomImpl implements ShowtimeRepositoryCustom {
+
+    private static final String BOOKED_WORDS = "seatInventory.booked.";
+
+    private static final String SEAT_MAP_VERSION = "seatMapVersion";
+
+    private static final String THEATRE_KEYS = "theatreKeys";
+
+    /**
+     * Adds the showtime's theatre ID both as a string and, if it is one, as an ObjectId.
+     */
+    private static final AggregationOperation ADD_THEATRE_KEYS = context -> new Document("$addFields",
+            new Document(THEATRE_KEYS, List.of("$theatreId", new Document("$convert", new Document()
+                    .append("input", "$theatreId")
+                    .append("to", "objectId")
+                    .append("onError", "$theatreId")))));
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<Showtime> claimSeats(String showtimeId, int[] seatIndexes) {
+        Map<Integer, Long> masks = SeatInventory.wordMasks(seatIndexes);
+
+        Query query = Query.query(Criteria.where("_id").is(showtimeId)
+                .and("availableSeats").gte(seatIndexes.length));
+        Update update = new Update().inc("availableSeats", -seatIndexes.length).inc(SEAT_MAP_VERSION, 1);
+        masks.forEach((word, mask) -> {
+            query.addCriteria(Criteria.where(BOOKED_WORDS + word).bits().allClear(bitPositions(mask)));
+            update.bitwise(BOOKED_WORDS + word).or(mask);
+        });
+
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Showtime.class));
+    }
+
+    @Override
+    public boolean releaseSeats(String showtimeId, int[] seatIndexes) {
+        Map<Integer, Long> masks = SeatInventory.wordMasks(seatIndexes);
+
+        Query query = Query.query(Criteria.where("_id").is(showtimeId));
+        Update update = new Update().inc("availableSeats", seatIndexes.length).inc(SEAT_MAP_VERSION, 1);
+        masks.forEach((word, mask) -> {
+            query.addCriteria(Criteria.where(BOOKED_WORDS + word).bits().allSet(bitPositions(mask)));
+            update.bitwise(BOOKED_WORDS + word).and(~mask);
+        });
+
+        return mongoTemplate.updateFirst(query, update, Showtime.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public boolean compareAndSetSeatWords(String showtimeId, Map<Integer, long[]> words, int availableSeatsDelta) {
+        Query query = Query.query(Criteria.where("_id").is(showtimeId));
+        Update update = new Update().inc("availableSeats", availableSeatsDelta).inc(SEAT_MAP_VERSION, 1);
+        words.forEach((word, values) -> {
+            query.addCriteria(Criteria.where(BOOKED_WORDS + word).is(values[0]));
+            update.set(BOOKED_WORDS + word, values[1]);
+        });
+
+        return mongoTemplate.updateFirst(query, update, Showtime.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public boolean initializeSeatInventory(String showtimeId, SeatInventory inventory, int availableSeats) {
+        Query query = Query.query(Criteria.where("_id").is(showtimeId)
+                .and("seatInventory").exists(false));
+        Update update = new Update()
+                .set("seatInventory", inventory)
+                .set("availableSeats", availableSeats);
+
+        return mongoTemplate.updateFirst(query, update, Showtime.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public Optional<Long> findSeatMapVersion(String showtimeId) {
+        Query query = Query.query(Criteria.where("_id").is(showtimeId));
+        query.fields().include(SEAT_MAP_VERSION);
+
+        Showtime showtime = mongoTemplate.findOne(query, Showtime.class);
+        if (showtime == null) {
+            return Optional.empty();
+        }
+        return Optional.of(showtime.getSeatMapVersion() != null ? showtime.getSeatMapVersion() : 0L);
+    }
+
+    @Override
+    public Optional<ShowtimeSeatMap> findSeatMap(String showtimeId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("_id").is(showtimeId)),
+                ADD_THEATRE_KEYS,
+                Aggregation.lookup(mongoTemplate.getCollectionName(Theatre.class), THEATRE_KEYS, "_id", "theatre"),
+                Aggregation.unwind("theatre", true),
+                Aggregation.project("theatreId", "availableSeats", "seatInventory", "theatre"));
+
+        return Optional.ofNullable(mongoTemplate.aggregate(aggregation, Showtime.class, ShowtimeSeatMap.class)
+                .getUniqueMappedResult());
+    }
+
+    /**
+     * Lists the set bit positions of a word mask, as expected by the bitwise query operators.
+     */
+    private static List<Integer> bitPositions(long mask) {
+        List<Integer> positions = new ArrayList<>(Long.bitCount(mask));
+        for (long bits = mask; bits != 0; bits &= bits - 1) {
+            positions.add(Long.numberOfTrailingZeros(bits));
+        }
+        return positions;
+    }
+}
@@ -8,7 +8,7 @@ import org.springframework.stereotype.Repository;
 import com.moviebooking.models.User;
 
 @Repository
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
     Optional<User> findByEmail(String email); // password validation 
     boolean existsByEmail(String email); //registration authentication 
 }
@@ -0,0 +1,42 @@
+package com.moviebooking.repository;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Custom user operations for token revocation and password rehashing.
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Revokes every token of a user issued before a given time. An earlier
+     * time never replaces a later one.
+     *
+     * @param userId the user whose tokens to revoke
+     * @param validAfter tokens issued before this time are revoked
+     */
+    void revokeTokens(String userId, LocalDateTime validAfter);
+
+    /**
+     * Lists the users whose tokens were revoked after a given time.
+     *
+     * <p>Only {@code tokensValidAfter} is read, through its sparse index.</p>
+     *
+     * @param since the earliest revocation to list
+     * @return the time tokens are valid after, by user ID
+     */
+    Map<String, LocalDateTime> findTokenRevocations(LocalDateTime since);
+
+    /**
+     * Replaces a user's password hash, unless it has changed since it was read.
+     *
+     * @param userId the user whose password hash to replace
+     * @param expectedHash the hash the new one was derived from
+     * @param newHash the new hash
+     */
+    void updateHashedPassword(String userId, String expectedHash, String newHash);
+}
@@ -0,0 +1,53 @@
+package com.moviebooking.repository;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.moviebooking.models.User;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link MongoTemplate} implementation of {@link UserRepositoryCustom}.
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private static final String TOKENS_VALID_AFTER = "tokensValidAfter";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void revokeTokens(String userId, LocalDateTime validAfter) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(userId)),
+                new Update().max(TOKENS_VALID_AFTER, validAfter), User.class);
+    }
+
+    @Override
+    public Map<String, LocalDateTime> findTokenRevocations(LocalDateTime since) {
+        Query query = Query.query(Criteria.where(TOKENS_VALID_AFTER).gt(since));
+        query.fields().include(TOKENS_VALID_AFTER);
+
+        Map<String, LocalDateTime> revocations = new HashMap<>();
+        for (User user : mongoTemplate.find(query, User.class)) {
+            revocations.put(user.getId(), user.getTokensValidAfter());
+        }
+        return revocations;
+    }
+
+    @Override
+    public void updateHashedPassword(String userId, String expectedHash, String newHash) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(userId).and("hashedPassword").is(expectedHash)),
+                Update.update("hashedPassword", newHash), User.class);
+    }
+}
@@ -1,9 +1,12 @@
 package com.moviebooking.security;
 
 import java.io.IOException;
+import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -13,20 +16,57 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.moviebooking.utils.JwtUtil;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Authenticates requests that carry a bearer token.
+ * 
+ * <p>With {@code jwt.stateless-principal} (the default) the authentication is
+ * built from the verified token alone: the subject is the user ID and the
+ * {@code role} claim the single granted role, so no user lookup happens on
+ * the request path. Otherwise the user is loaded through the
+ * {@link UserDetailsService} as before. In both modes tokens revoked through
+ * the {@link TokenDenyList} are rejected.</p>
+ * 
+ * <p>The token is verified at most once per request, and not at all if the
+ * {@link VerifiedTokenCache} has already seen it. Its claims are left
+ * in the {@link #CLAIMS_ATTRIBUTE} request attribute for later filters and
+ * handlers. An invalid or expired token leaves the request unauthenticated.</p>
+ * 
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
-    private final JwtUtil jwtUtil;
+    /**
+     * Request attribute holding the verified {@link Claims} of an authenticated request.
+     */
+    public static final String CLAIMS_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".claims";
+    
+    private final VerifiedTokenCache verifiedTokenCache;
     private final UserDetailsService userDetailsService;
+    private final TokenDenyList tokenDenyList;
+    private final boolean statelessPrincipal;
+    
+    public JwtAuthenticationFilter(
+            VerifiedTokenCache verifiedTokenCache,
+            UserDetailsService userDetailsService,
+            TokenDenyList tokenDenyList,
+            @Value("${jwt.stateless-principal:true}") boolean statelessPrincipal) {
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.userDetailsService = userDetailsService;
+        this.tokenDenyList = tokenDenyList;
+        this.statelessPrincipal = statelessPrincipal;
+    }
     
     @Override
     protected void doFilterInternal(
@@ -36,31 +76,46 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String userId;
         
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")
+                || SecurityContextHolder.getContext().getAuthentication() != null) {
             filterChain.doFilter(request, response);
             return;
         }
         
-        jwt = authHeader.substring(7);
-        userId = jwtUtil.extractUsername(jwt);
+        // The only verification of the token in this request; the claims are handed on from here
+        Claims claims;
+        try {
+            claims = verifiedTokenCache.verify(authHeader.substring(7));
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected bearer token: {}", e.getMessage());
+            filterChain.doFilter(request, response);
+            return;
+        }
         
-        if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userId);
-            
-            if (jwtUtil.isTokenValid(jwt, userId)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
+        String userId = claims.getSubject();
+        if (userId != null && !tokenDenyList.isRevoked(userId, claims.getIssuedAt())) {
+            UsernamePasswordAuthenticationToken authToken = statelessPrincipal
+                    ? fromClaims(userId, claims.get(JwtUtil.ROLE_CLAIM, String.class))
+                    : fromUserDetails(userDetailsService.loadUserByUsername(userId));
+            if (authToken != null) {
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                request.setAttribute(CLAIMS_ATTRIBUTE, claims);
             }
         }
         filterChain.doFilter(request, response);
     }
+    
+    private static UsernamePasswordAuthenticationToken fromClaims(String userId, String role) {
+        if (role == null || role.isBlank()) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(userId, null,
+                List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+    }
+    
+    private static UsernamePasswordAuthenticationToken fromUserDetails(UserDetails userDetails) {
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
 }
-
@@ -0,0 +1,94 @@
+package com.moviebooking.security;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.moviebooking.dto.ApiResponse;
+
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rejects requests over their route's rate limit with 429 before they reach a controller.
+ *
+ * <p>Runs right after the {@link JwtAuthenticationFilter}, so requests to
+ * routes keyed by user are counted against the user ID of a valid token.
+ * Anonymous requests, and routes keyed by IP, are counted against
+ * {@link HttpServletRequest#getRemoteAddr()}; behind a proxy, set
+ * {@code server.forward-headers-strategy} so that is the client's address.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        RateLimiter.Route route = rateLimiter.match(request.getMethod(), path);
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String client = client(request, route.key());
+        long wait = rateLimiter.tryAcquire(route, client);
+        if (wait == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        log.debug("Rate limit {} exceeded by {}", route.name(), client);
+        long retryAfterSeconds = (wait + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.builder()
+                .message("Too many requests, please try again later")
+                .success(false)
+                .build());
+    }
+
+    private static String client(HttpServletRequest request, RateLimitProperties.Key key) {
+        if (key == RateLimitProperties.Key.USER) {
+            if (request.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE) instanceof Claims claims
+                    && claims.getSubject() != null) {
+                return "user:" + claims.getSubject();
+            }
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.isAuthenticated()
+                    && !(authentication instanceof AnonymousAuthenticationToken)) {
+                return "user:" + authentication.getName();
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
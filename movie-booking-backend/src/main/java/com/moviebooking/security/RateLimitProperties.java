@@ -0,0 +1,80 @@
+package com.moviebooking.security;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Rate limit settings bound from {@code booking.rate-limit}.
+ *
+ * <p>Unlike the flat settings elsewhere these are bound as a whole, since the
+ * per-route policies are a list.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+@ConfigurationProperties(prefix = "booking.rate-limit")
+@Data
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /** Buckets kept per node; the least recently used are dropped first. */
+    private long maxBuckets = 100_000;
+
+    /** Policies in order of precedence; a request is limited by the first one it matches. */
+    private List<Policy> policies = new ArrayList<>();
+
+    private Sync sync = new Sync();
+
+    /**
+     * Limit on one route.
+     */
+    @Data
+    public static class Policy {
+
+        private String name;
+
+        /** HTTP method to match, or null for any. */
+        private String method;
+
+        /** Ant-style path pattern, e.g. {@code /api/showtimes/*}{@code /holds}. */
+        private String path;
+
+        private Key key = Key.USER;
+
+        /** Requests allowed in a burst. */
+        private int capacity;
+
+        /** Time for an empty bucket to refill to {@code capacity}. */
+        private Duration period;
+    }
+
+    /**
+     * What a bucket is kept per.
+     */
+    public enum Key {
+        /** The authenticated user, or the client IP for anonymous requests. */
+        USER,
+        /** The client IP. */
+        IP
+    }
+
+    /**
+     * Sharing of request counts between nodes.
+     */
+    @Data
+    public static class Sync {
+
+        private boolean enabled = false;
+
+        private Duration interval = Duration.ofSeconds(1);
+    }
+}
@@ -0,0 +1,199 @@
+package com.moviebooking.security;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.moviebooking.repository.RateLimitCounterRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-route request limits, kept as one {@link TokenBucket} per policy and client.
+ *
+ * <p>Buckets live in a Caffeine cache bounded by {@code booking.rate-limit.max-buckets}.
+ * A bucket left alone for the longest policy period has refilled completely,
+ * so it is dropped after that much idle time without changing any decision;
+ * only a flood of distinct clients can evict buckets early, and then the
+ * least recently used go first.</p>
+ *
+ * <p>Limits are enforced per node. With {@code booking.rate-limit.sync.enabled}
+ * each node also adds the requests it let through to a shared MongoDB counter
+ * every {@code booking.rate-limit.sync.interval}, and takes whatever the other
+ * nodes used in the meantime out of its own bucket. A client spread over
+ * several nodes is then held to roughly the configured rate, lagging by one
+ * sync interval. Only buckets that saw traffic on this node are synced.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+@Slf4j
+public class RateLimiter implements ApplicationRunner {
+
+    private final RateLimitCounterRepository rateLimitCounterRepository;
+    private final boolean enabled;
+    private final List<Route> routes = new ArrayList<>();
+    private final Duration idleTimeout;
+    private final RateLimitProperties.Sync sync;
+    private final Cache<String, Entry> buckets;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final ScheduledExecutorService syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rate-limit-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RateLimiter(
+            RateLimitCounterRepository rateLimitCounterRepository,
+            MeterRegistry meterRegistry,
+            RateLimitProperties properties) {
+        this.rateLimitCounterRepository = rateLimitCounterRepository;
+        this.enabled = properties.isEnabled();
+        this.sync = properties.getSync();
+
+        Duration longestPeriod = Duration.ofSeconds(1);
+        for (RateLimitProperties.Policy policy : properties.getPolicies()) {
+            Route route = Route.of(policy, meterRegistry);
+            routes.add(route);
+            if (policy.getPeriod().compareTo(longestPeriod) > 0) {
+                longestPeriod = policy.getPeriod();
+            }
+        }
+        this.idleTimeout = longestPeriod;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxBuckets())
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled && sync.isEnabled() && !routes.isEmpty()) {
+            long interval = sync.getInterval().toMillis();
+            syncer.scheduleWithFixedDelay(this::sync, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stopSyncer() {
+        syncer.shutdownNow();
+    }
+
+    /**
+     * Finds the policy that limits a request.
+     *
+     * @param method the HTTP method
+     * @param path the request path, without the context path
+     * @return the first matching route, or null if the request is not limited
+     */
+    public Route match(String method, String path) {
+        if (!enabled) {
+            return null;
+        }
+        for (Route route : routes) {
+            if ((route.method() == null || route.method().equals(method)) && pathMatcher.match(route.path(), path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes one request from a client's bucket for a route.
+     *
+     * @param route the route, as returned by {@link #match(String, String)}
+     * @param client the client key, e.g. {@code user:<id>} or {@code ip:<address>}
+     * @return 0 if the request may proceed, otherwise the nanoseconds until it would be allowed
+     */
+    public long tryAcquire(Route route, String client) {
+        long now = System.nanoTime();
+        Entry entry = buckets.get(route.name() + ':' + client, key -> new Entry(route, new TokenBucket(now)));
+        long wait = entry.bucket().tryAcquire(now, route.interval(), route.depth());
+        if (wait > 0) {
+            route.rejected().increment();
+        }
+        return wait;
+    }
+
+    private void sync() {
+        try {
+            Map<String, Long> increments = new HashMap<>();
+            Map<String, Entry> entries = new HashMap<>();
+            buckets.asMap().forEach((key, entry) -> {
+                long taken = entry.bucket().drainUnsynced();
+                if (taken > 0) {
+                    increments.put(key, taken);
+                    entries.put(key, entry);
+                }
+            });
+            if (increments.isEmpty()) {
+                return;
+            }
+
+            Map<String, Long> totals = rateLimitCounterRepository.addCounts(increments,
+                    LocalDateTime.now().plus(idleTimeout));
+            long now = System.nanoTime();
+            totals.forEach((key, total) -> {
+                Entry entry = entries.get(key);
+                long remote = entry.bucket().synced(total, increments.get(key));
+                if (remote > 0) {
+                    Route route = entry.route();
+                    entry.bucket().charge(remote, now, route.interval(), route.depth());
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not sync rate limit counters: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * A compiled policy.
+     *
+     * @param interval nanoseconds to refill one request
+     * @param depth nanoseconds to refill the whole bucket
+     */
+    public record Route(String name, String method, String path, RateLimitProperties.Key key,
+                        long interval, long depth, Counter rejected) {
+
+        static Route of(RateLimitProperties.Policy policy, MeterRegistry meterRegistry) {
+            if (policy.getName() == null || policy.getName().isBlank() || policy.getPath() == null) {
+                throw new IllegalArgumentException("Rate limit policies need a name and a path");
+            }
+            if (policy.getCapacity() < 1 || policy.getPeriod() == null
+                    || policy.getPeriod().compareTo(Duration.ofMillis(1)) < 0) {
+                throw new IllegalArgumentException("Rate limit policy " + policy.getName()
+                        + " needs a positive capacity and period");
+            }
+            long interval = policy.getPeriod().toNanos() / policy.getCapacity();
+            String method = policy.getMethod() == null ? null : policy.getMethod().toUpperCase(Locale.ROOT);
+            Counter rejected = Counter.builder("http.rate-limit.rejected")
+                    .tag("policy", policy.getName())
+                    .register(meterRegistry);
+            return new Route(policy.getName(), method, policy.getPath(), policy.getKey(),
+                    interval, interval * policy.getCapacity(), rejected);
+        }
+    }
+
+    private record Entry(Route route, TokenBucket bucket) {
+    }
+}
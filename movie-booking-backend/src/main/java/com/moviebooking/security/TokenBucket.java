@@ -0,0 +1,87 @@
+package com.moviebooking.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket.
+ *
+ * <p>The bucket is kept in its virtual-scheduling form: a single
+ * {@code long} holds the time at which it will be full again. Taking a token
+ * pushes that time one refill interval further, and is refused if it would
+ * end up more than {@code capacity} intervals ahead of now, i.e. if the
+ * bucket is empty. This behaves exactly like counting tokens and refilling
+ * them over time, but the whole state changes with one compare-and-set, so
+ * concurrent requests never block each other.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+final class TokenBucket {
+
+    /** {@link System#nanoTime()} at which the bucket is full; a time in the past means full. */
+    private final AtomicLong fullAt;
+
+    /** Tokens taken on this node and not yet synced. */
+    private final AtomicLong unsynced = new AtomicLong();
+
+    /** Cluster-wide count as of the last sync, or -1 before the first; sync thread only. */
+    private long syncedTotal = -1;
+
+    TokenBucket(long now) {
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Takes one token.
+     *
+     * @param now the current {@link System#nanoTime()}
+     * @param interval nanoseconds to refill one token
+     * @param depth nanoseconds to refill the whole bucket
+     * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+     */
+    long tryAcquire(long now, long interval, long depth) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + interval;
+            long wait = next - now - depth;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                unsynced.incrementAndGet();
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Removes tokens used elsewhere, without refusing; the bucket empties at most.
+     */
+    void charge(long tokens, long now, long interval, long depth) {
+        fullAt.accumulateAndGet(now, (current, time) ->
+                Math.min(Math.max(current, time) + tokens * interval, time + depth));
+    }
+
+    /**
+     * Hands over the tokens taken on this node since the last call.
+     */
+    long drainUnsynced() {
+        return unsynced.getAndSet(0);
+    }
+
+    /**
+     * Records the cluster-wide count after a sync.
+     *
+     * @param total the count read back
+     * @param added what this sync added to it
+     * @return the tokens used on other nodes since the previous sync
+     */
+    long synced(long total, long added) {
+        // The first sync only sets the baseline, and a counter that expired and
+        // started again reads lower; neither says anything about recent use
+        long remote = syncedTotal < 0 ? 0 : Math.max(0, total - syncedTotal - added);
+        syncedTotal = total;
+        return remote;
+    }
+}
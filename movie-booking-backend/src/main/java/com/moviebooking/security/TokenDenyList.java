@@ -0,0 +1,112 @@
+package com.moviebooking.security;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import com.moviebooking.repository.UserRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory list of revoked tokens, checked on every authenticated request.
+ *
+ * <p>A user's tokens are revoked by recording a time before which their
+ * tokens are no longer accepted. The list only holds users with a revocation
+ * younger than {@code jwt.expiration}, since older tokens have expired anyway,
+ * so it stays small. It is reloaded from MongoDB every
+ * {@code jwt.deny-list.refresh-interval}, which bounds how long a revocation
+ * made on another node takes to apply here; revocations made on this node
+ * apply at once.</p>
+ *
+ * <p>JWT issue times have a resolution of one second, so a token issued in the
+ * same second as the revocation is still accepted.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+@Slf4j
+public class TokenDenyList implements ApplicationRunner {
+
+    private final UserRepository userRepository;
+    private final Duration tokenLifetime;
+    private final Duration refreshInterval;
+
+    private final Map<String, LocalDateTime> validAfter = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "token-deny-list");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TokenDenyList(
+            UserRepository userRepository,
+            @Value("${jwt.expiration}") long jwtExpiration,
+            @Value("${jwt.deny-list.refresh-interval:30s}") Duration refreshInterval) {
+        this.userRepository = userRepository;
+        this.tokenLifetime = Duration.ofMillis(jwtExpiration);
+        this.refreshInterval = refreshInterval;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        refresh();
+        refresher.scheduleWithFixedDelay(this::refresh,
+                refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopRefresher() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Revokes a user's tokens on this node. The caller persists the revocation.
+     *
+     * @param userId the user whose tokens to revoke
+     * @param time tokens issued before this time are revoked
+     */
+    public void revoke(String userId, LocalDateTime time) {
+        validAfter.merge(userId, time, (current, revoked) -> revoked.isAfter(current) ? revoked : current);
+    }
+
+    /**
+     * Checks whether a token has been revoked.
+     *
+     * @param userId the token subject
+     * @param issuedAt the token issue time, or null if the token has none
+     * @return true if the token must be rejected, false otherwise
+     */
+    public boolean isRevoked(String userId, Date issuedAt) {
+        LocalDateTime revokedBefore = validAfter.get(userId);
+        if (revokedBefore == null) {
+            return false;
+        }
+        return issuedAt == null
+                || LocalDateTime.ofInstant(issuedAt.toInstant(), ZoneId.systemDefault()).isBefore(revokedBefore);
+    }
+
+    private void refresh() {
+        try {
+            LocalDateTime horizon = LocalDateTime.now().minus(tokenLifetime);
+            userRepository.findTokenRevocations(horizon).forEach(this::revoke);
+            validAfter.values().removeIf(time -> time.isBefore(horizon));
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh the token deny list: {}", e.getMessage());
+        }
+    }
+}
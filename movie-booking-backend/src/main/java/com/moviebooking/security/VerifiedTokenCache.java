@@ -0,0 +1,121 @@
+package com.moviebooking.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.moviebooking.utils.JwtUtil;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache of bearer tokens that have already been verified.
+ *
+ * <p>A session sends the same token with every request for its whole
+ * lifetime, so after the first HMAC check the claims are served from a
+ * size-bounded Caffeine cache, whose eviction policy keeps the most
+ * frequently used sessions. Each entry expires together with its token.
+ * Tokens that fail verification are never cached.</p>
+ *
+ * <p>Entries are keyed by the SHA-256 digest of the token, which keeps keys
+ * small without letting a forged token collide with a cached one. A
+ * non-cryptographic hash would be slightly faster, but would let an attacker
+ * craft a token that hits a victim's entry. Revocation is unaffected: the
+ * {@link TokenDenyList} is still consulted on every request.</p>
+ *
+ * <p>Hits, misses and evictions are published as the
+ * {@code jwt.verified-tokens} cache metrics. The cached {@link Claims} are
+ * shared between requests and must not be modified.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final JwtUtil jwtUtil;
+    private final Cache<TokenKey, Claims> verified;
+
+    public VerifiedTokenCache(
+            JwtUtil jwtUtil,
+            MeterRegistry meterRegistry,
+            @Value("${jwt.expiration}") long jwtExpiration,
+            @Value("${jwt.cache.size:10000}") long cacheSize) {
+        this.jwtUtil = jwtUtil;
+        Duration maxLifetime = Duration.ofMillis(jwtExpiration);
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new Expiry<TokenKey, Claims>() {
+                    @Override
+                    public long expireAfterCreate(TokenKey key, Claims claims, long currentTime) {
+                        Date expiration = claims.getExpiration();
+                        if (expiration == null) {
+                            return maxLifetime.toNanos();
+                        }
+                        long remaining = expiration.getTime() - System.currentTimeMillis();
+                        return Duration.ofMillis(Math.max(remaining, 0)).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(TokenKey key, Claims claims, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(TokenKey key, Claims claims, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "jwt.verified-tokens");
+    }
+
+    /**
+     * Verifies a token, or returns its claims from an earlier verification.
+     *
+     * @param token the JWT token to verify
+     * @return all claims of the token
+     * @throws JwtException if the token is malformed, forged or expired
+     * @throws IllegalArgumentException if the token is empty
+     */
+    public Claims verify(String token) {
+        return verified.get(TokenKey.of(token), key -> jwtUtil.parseClaims(token));
+    }
+
+    /**
+     * SHA-256 digest of a token, held as four longs.
+     */
+    private record TokenKey(long a, long b, long c, long d) {
+
+        static TokenKey of(String token) {
+            byte[] digest = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            return new TokenKey(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package com.moviebooking.service;
 
-import org.springframework.security.crypto.password.PasswordEncoder;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import com.moviebooking.dto.AuthResponse;
@@ -8,12 +13,14 @@ import com.moviebooking.dto.UserCreateRequest;
 import com.moviebooking.dto.UserLoginRequest;
 import com.moviebooking.dto.UserResponse;
 import com.moviebooking.exception.BadRequestException;
+import com.moviebooking.exception.ServiceUnavailableException;
 import com.moviebooking.models.User;
 import com.moviebooking.enums.UserRole;
 import com.moviebooking.repository.UserRepository;
+import com.moviebooking.security.PasswordHasher;
+import com.moviebooking.security.TokenDenyList;
 import com.moviebooking.utils.JwtUtil;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -25,23 +32,38 @@ import lombok.extern.slf4j.Slf4j;
  *   <li>User login with JWT token generation</li>
  *   <li>Email uniqueness validation</li>
  *   <li>Password verification</li>
+ *   <li>Token revocation on logout</li>
  * </ul>
  * 
  * <p>The service ensures secure authentication by using BCrypt password
- * hashing and JWT tokens for session management.</p>
+ * hashing and JWT tokens for session management. Hashing runs on the
+ * {@link PasswordHasher} pool, so registration and login complete
+ * asynchronously. What follows a hash, such as saving the user and signing
+ * the token, runs on Spring's application task executor, so the hashing
+ * threads never wait on MongoDB.</p>
  * 
  * @author Movie Booking Team
  * @version 1.0.0
  * @since 2024-01-01
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class AuthService {
     
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtUtil jwtUtil;
+    private final TokenDenyList tokenDenyList;
+    private final Executor executor;
+    
+    public AuthService(UserRepository userRepository, PasswordHasher passwordHasher, JwtUtil jwtUtil,
+                       TokenDenyList tokenDenyList, @Qualifier("applicationTaskExecutor") Executor executor) {
+        this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+        this.jwtUtil = jwtUtil;
+        this.tokenDenyList = tokenDenyList;
+        this.executor = executor;
+    }
     
     /**
      * Registers a new user in the system.
@@ -49,16 +71,17 @@ public class AuthService {
      * <p>This method performs the following operations:</p>
      * <ul>
      *   <li>Validates email uniqueness</li>
-     *   <li>Encrypts the password using BCrypt</li>
+     *   <li>Encrypts the password using BCrypt, on the password hashing pool</li>
      *   <li>Creates a new user entity</li>
      *   <li>Generates a JWT token for immediate authentication</li>
      * </ul>
      * 
      * @param request the user registration request containing user details
-     * @return authentication response with JWT token and user information
+     * @return the future authentication response with JWT token and user information
      * @throws BadRequestException if the email is already registered
+     * @throws ServiceUnavailableException if too many passwords are being hashed
      */
-    public AuthResponse register(UserCreateRequest request) {
+    public CompletableFuture<AuthResponse> register(UserCreateRequest request) {
         log.info("Registering new user with email: {}", request.getEmail());
         
         // Check if email is already registered
@@ -67,35 +90,24 @@ public class AuthService {
             throw new BadRequestException("Email already registered");
         }
         
-        // Create new user with encrypted password
-        User user = User.builder()
-                .email(request.getEmail())
-                .name(request.getName())
-                .role(UserRole.USER) //default role is user
-                .hashedPassword(passwordEncoder.encode(request.getPassword()))
-                .build();
-        
-        // Generate ID for the user
-        user.generateIdIfNotSet();
-        
-        // Save user to database
-        userRepository.save(user);
-        
-        // Generate JWT token
-        String token = jwtUtil.generateToken(user.getId(), user.getRole().name());
-        
-        log.info("Successfully registered user: {}", user.getId());
-        
-        return AuthResponse.builder()
-                .accessToken(token)
-                .tokenType("bearer")
-                .user(UserResponse.builder()
-                        .id(user.getId())
-                        .email(user.getEmail())
-                        .name(user.getName())
-                        .role(user.getRole())
-                        .build())
-                .build();
+        return passwordHasher.encode(request.getPassword()).thenApplyAsync(hashedPassword -> {
+            // Create new user with encrypted password
+            User user = User.builder()
+                    .email(request.getEmail())
+                    .name(request.getName())
+                    .role(UserRole.USER) //default role is user
+                    .hashedPassword(hashedPassword)
+                    .build();
+            
+            // Generate ID for the user
+            user.generateIdIfNotSet();
+            
+            // Save user to database
+            userRepository.save(user);
+            
+            log.info("Successfully registered user: {}", user.getId());
+            return authResponse(user);
+        }, executor);
     }
     
     /**
@@ -104,15 +116,17 @@ public class AuthService {
      * <p>This method performs the following operations:</p>
      * <ul>
      *   <li>Finds the user by email</li>
-     *   <li>Verifies the provided password against the stored hash</li>
+     *   <li>Verifies the provided password against the stored hash, on the password hashing pool</li>
+     *   <li>Rehashes the password in the background if it was hashed with a lower cost than configured</li>
      *   <li>Generates a JWT token for successful authentication</li>
      * </ul>
      * 
      * @param request the login request containing email and password
-     * @return authentication response with JWT token and user information
+     * @return the future authentication response with JWT token and user information
      * @throws BadRequestException if email or password is invalid
+     * @throws ServiceUnavailableException if too many passwords are being hashed
      */
-    public AuthResponse login(UserLoginRequest request) {
+    public CompletableFuture<AuthResponse> login(UserLoginRequest request) {
         log.info("Login attempt for email: {}", request.getEmail());
         
         // Find user by email
@@ -123,16 +137,60 @@ public class AuthService {
                 });
         
         // Verify password
-        if (!passwordEncoder.matches(request.getPassword(), user.getHashedPassword())) {
-            log.warn("Login failed: Invalid password for email: {}", request.getEmail());
-            throw new BadRequestException("Invalid email or password");
+        return passwordHasher.matches(request.getPassword(), user.getHashedPassword()).thenApplyAsync(matches -> {
+            if (!matches) {
+                log.warn("Login failed: Invalid password for email: {}", request.getEmail());
+                throw new BadRequestException("Invalid email or password");
+            }
+            if (passwordHasher.needsRehash(user.getHashedPassword())) {
+                rehash(user, request.getPassword());
+            }
+            
+            log.info("Successfully logged in user: {}", user.getId());
+            return authResponse(user);
+        }, executor);
+    }
+    
+    /**
+     * Revokes every token issued to a user so far.
+     * 
+     * <p>The revocation is stored on the user, so other nodes pick it up with
+     * their next deny list refresh, and applies on this node at once.</p>
+     * 
+     * @param userId the ID of the user to log out
+     */
+    public void logout(String userId) {
+        // Token issue times are whole seconds
+        LocalDateTime validAfter = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        userRepository.revokeTokens(userId, validAfter);
+        tokenDenyList.revoke(userId, validAfter);
+        log.info("Revoked tokens of user: {}", userId);
+    }
+    
+    /**
+     * Stores a new hash of a user's password, made with the configured cost.
+     * Skipped if the hashing pool is busy; the next login tries again.
+     */
+    private void rehash(User user, String rawPassword) {
+        try {
+            passwordHasher.encode(rawPassword)
+                    .thenAcceptAsync(hashedPassword -> {
+                        userRepository.updateHashedPassword(user.getId(), user.getHashedPassword(), hashedPassword);
+                        log.info("Rehashed password of user: {}", user.getId());
+                    }, executor)
+                    .exceptionally(e -> {
+                        log.warn("Could not rehash password of user {}: {}", user.getId(), e.getMessage());
+                        return null;
+                    });
+        } catch (ServiceUnavailableException e) {
+            log.debug("Deferred password rehash of user {}: hashing pool is busy", user.getId());
         }
-        
+    }
+    
+    private AuthResponse authResponse(User user) {
         // Generate JWT token
         String token = jwtUtil.generateToken(user.getId(), user.getRole().name());
         
-        log.info("Successfully logged in user: {}", user.getId());
-        
         return AuthResponse.builder()
                 .accessToken(token)
                 .tokenType("bearer")
@@ -145,4 +203,3 @@ public class AuthService {
                 .build();
     }
 }
-
@@ -0,0 +1,573 @@
+package com.moviebooking.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.moviebooking.dto.BookingCreateRequest;
+import com.moviebooking.enums.SeatStatus;
+import com.moviebooking.exception.BadRequestException;
+import com.moviebooking.exception.BookingOutcomeUnknownException;
+import com.moviebooking.exception.ResourceNotFoundException;
+import com.moviebooking.exception.ServiceUnavailableException;
+import com.moviebooking.models.Booking;
+import com.moviebooking.models.SeatInventory;
+import com.moviebooking.models.SeatLayoutTemplate;
+import com.moviebooking.models.Showtime;
+import com.moviebooking.repository.BookingRepository;
+import com.moviebooking.repository.ShowtimeRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Single-writer sequencer for hot showtimes.
+ *
+ * <p>Showtimes listed in {@code booking.sequencer.showtime-ids} get a
+ * dedicated bounded queue and one worker thread. Booking and cancellation commands for such a showtime are
+ * queued instead of contending on the showtime document. The worker drains the
+ * queue in batches of up to {@code booking.sequencer.max-batch} commands,
+ * applies them to an in-memory copy of the seat inventory, and then commits the
+ * whole batch with one conditional showtime update and one bulk booking write
+ * (group commit).</p>
+ *
+ * <p>The showtime update only succeeds if the touched bitmap words still hold
+ * the values the worker started from. If another writer changed them, the
+ * worker reloads the inventory and re-applies the batch. The bookings are
+ * inserted after the seats are committed; if some of them cannot be saved,
+ * only their seats are released again.</p>
+ *
+ * <p>A cancellation first moves its booking from "confirmed" to "cancelled"
+ * with a conditional update, and only frees the seats if that update matched.
+ * The booking passed in may have been read long before, so a second
+ * cancellation of the same booking, in this batch or a later one, is rejected
+ * there and never frees seats that have been sold again since.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookingSequencer {
+
+    private static final int MAX_COMMIT_ATTEMPTS = 3;
+
+    private final ShowtimeRepository showtimeRepository;
+    private final BookingRepository bookingRepository;
+    private final SeatInventoryService seatInventoryService;
+    private final SeatHoldService seatHoldService;
+    private final SeatMapBroadcaster seatMapBroadcaster;
+
+    /**
+     * Showtimes that are sequenced from startup.
+     */
+    @Value("${booking.sequencer.showtime-ids:}")
+    private Set<String> configuredShowtimeIds;
+
+    /**
+     * Maximum number of commands waiting per showtime before new ones are rejected.
+     */
+    @Value("${booking.sequencer.queue-capacity:10000}")
+    private int queueCapacity;
+
+    /**
+     * Maximum number of commands committed together.
+     */
+    @Value("${booking.sequencer.max-batch:256}")
+    private int maxBatch;
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * Checks whether a showtime's bookings go through the sequencer.
+     *
+     * @param showtimeId the showtime to check
+     * @return true if the showtime is sequenced, false otherwise
+     */
+    public boolean isSequenced(String showtimeId) {
+        return configuredShowtimeIds.contains(showtimeId);
+    }
+
+    /**
+     * Queues a booking for a sequenced showtime.
+     *
+     * @param request the booking creation request
+     * @param userId the ID of the user making the booking
+     * @return a future completed with the stored booking, or with the reason it was rejected
+     * @throws ServiceUnavailableException if the showtime's queue is full
+     */
+    public CompletableFuture<Booking> submitBooking(BookingCreateRequest request, String userId) {
+        return submit(request.getShowtimeId(), new BookCommand(request, userId, new CompletableFuture<>()));
+    }
+
+    /**
+     * Queues a cancellation for a sequenced showtime.
+     *
+     * @param booking the booking to cancel; it is only cancelled if it is still confirmed when its turn comes
+     * @return a future completed with the cancelled booking, or with the reason it was rejected
+     * @throws ServiceUnavailableException if the showtime's queue is full
+     */
+    public CompletableFuture<Booking> submitCancellation(Booking booking) {
+        return submit(booking.getShowtimeId(), new CancelCommand(booking, new CompletableFuture<>()));
+    }
+
+    @PreDestroy
+    void stopLanes() {
+        lanes.values().forEach(Lane::stopWhenDrained);
+    }
+
+    private CompletableFuture<Booking> submit(String showtimeId, Command command) {
+        Lane lane = lanes.computeIfAbsent(showtimeId, Lane::new);
+        if (!lane.queue.offer(command)) {
+            throw new ServiceUnavailableException("Showtime is busy, please try again");
+        }
+        if (lane.stopping && lane.queue.remove(command)) {
+            // The lane was shut down concurrently and its worker may already be gone
+            throw new ServiceUnavailableException("Showtime is busy, please try again");
+        }
+        return command.future();
+    }
+
+    private sealed interface Command permits BookCommand, CancelCommand {
+        CompletableFuture<Booking> future();
+    }
+
+    private record BookCommand(BookingCreateRequest request, String userId,
+                               CompletableFuture<Booking> future) implements Command {
+    }
+
+    private record CancelCommand(Booking booking, CompletableFuture<Booking> future) implements Command {
+    }
+
+    /**
+     * A command applied to the in-memory state, waiting for its batch to be committed.
+     */
+    private record Applied(Command command, Booking booking, int[] seatIndexes) {
+    }
+
+    /**
+     * A booking this worker has moved to "cancelled", and the command that did it.
+     */
+    private record Cancellation(CancelCommand command, Booking booking) {
+    }
+
+    /**
+     * Queue, worker thread and in-memory seat state of one sequenced showtime.
+     */
+    private final class Lane implements Runnable {
+
+        private final String showtimeId;
+        private final BlockingQueue<Command> queue;
+        private volatile boolean stopping;
+
+        /** Working copy of the showtime's seat inventory, or null when it must be reloaded. */
+        private SeatInventory state;
+
+        /** Layout of the showtime's theatre, loaded with the first state. */
+        private SeatLayoutTemplate layout;
+
+        Lane(String showtimeId) {
+            this.showtimeId = showtimeId;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            Thread worker = new Thread(this, "booking-sequencer-" + showtimeId);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        void stopWhenDrained() {
+            stopping = true;
+        }
+
+        @Override
+        public void run() {
+            List<Command> batch = new ArrayList<>(maxBatch);
+            try {
+                while (!stopping || !queue.isEmpty()) {
+                    try {
+                        Command first = queue.poll(1, TimeUnit.SECONDS);
+                        if (first == null) {
+                            continue;
+                        }
+                        batch.add(first);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    queue.drainTo(batch, maxBatch - 1);
+                    try {
+                        process(batch);
+                    } catch (Throwable e) {
+                        // Keep the worker alive; commands already answered ignore this
+                        log.error("Unexpected failure processing booking batch for showtime: {}", showtimeId, e);
+                        state = null;
+                        rejectAll(batch);
+                    }
+                    batch.clear();
+                }
+            } finally {
+                // Later commands get a fresh lane; submit() takes back any that race with this
+                stopping = true;
+                lanes.remove(showtimeId, this);
+                List<Command> left = new ArrayList<>();
+                queue.drainTo(left);
+                rejectAll(left);
+            }
+        }
+
+        private void rejectAll(List<Command> commands) {
+            ServiceUnavailableException busy = new ServiceUnavailableException("Showtime is busy, please try again");
+            commands.forEach(command -> command.future().completeExceptionally(busy));
+        }
+
+        private void process(List<Command> batch) {
+            List<Command> pending = batch;
+            // Already cancelled in MongoDB by this batch, by booking ID; kept across retries
+            Map<String, Cancellation> cancelled = new HashMap<>();
+            for (int attempt = 1; attempt <= MAX_COMMIT_ATTEMPTS; attempt++) {
+                try {
+                    if (state == null) {
+                        state = loadState();
+                    }
+                } catch (RuntimeException e) {
+                    fail(pending, cancelled, e);
+                    return;
+                }
+
+                long[] before = state.getBooked().clone();
+                List<Applied> applied = new ArrayList<>(pending.size());
+                int availableDelta = 0;
+                for (Command command : pending) {
+                    try {
+                        Applied result = apply(command, cancelled);
+                        availableDelta += command instanceof BookCommand
+                                ? -result.seatIndexes().length
+                                : result.seatIndexes().length;
+                        applied.add(result);
+                    } catch (RuntimeException e) {
+                        command.future().completeExceptionally(e);
+                    }
+                }
+                if (applied.isEmpty()) {
+                    return;
+                }
+
+                boolean seatsCommitted;
+                try {
+                    seatsCommitted = commitSeats(before, availableDelta);
+                } catch (RuntimeException e) {
+                    log.error("Failed to commit booking batch for showtime: {}", showtimeId, e);
+                    state = null;
+                    fail(applied.stream().map(Applied::command).toList(), cancelled, e);
+                    return;
+                }
+                if (seatsCommitted) {
+                    // From here on the seats are written, so no command of the batch may go through fail()
+                    finish(applied);
+                    return;
+                }
+
+                // Someone else changed the seats; reload and re-apply the surviving commands
+                log.warn("Seat inventory of showtime {} changed concurrently, retrying batch", showtimeId);
+                state = null;
+                pending = applied.stream().map(Applied::command).toList();
+            }
+            fail(pending, cancelled, new ServiceUnavailableException("Showtime is busy, please try again"));
+        }
+
+        /**
+         * Saves the bookings of a batch whose seats are committed, then answers every command.
+         */
+        private void finish(List<Applied> applied) {
+            Set<String> unsaved;
+            try {
+                unsaved = saveBookings(applied);
+            } catch (RuntimeException e) {
+                log.error("Could not tell which bookings of showtime {} were saved; seats {} stay booked",
+                        showtimeId, Arrays.toString(seatIndexesOf(applied, null)), e);
+                unsaved = null;
+            }
+            boolean outcomeUnknown = unsaved == null;
+            if (outcomeUnknown) {
+                state = null;
+                unsaved = newBookingIds(applied);
+            }
+
+            Set<String> notCommitted = unsaved;
+            List<Applied> committed = applied.stream()
+                    .filter(result -> !notCommitted.contains(result.booking().getId()))
+                    .toList();
+            long bookings = committed.stream()
+                    .filter(result -> result.command() instanceof BookCommand)
+                    .count();
+            log.info("Committed batch of {} bookings and {} cancellations for showtime: {}",
+                    bookings, committed.size() - bookings, showtimeId);
+            try {
+                publish(committed);
+            } catch (RuntimeException e) {
+                log.error("Failed to publish seat changes of showtime: {}", showtimeId, e);
+            }
+            committed.forEach(this::complete);
+            // A booking that may exist must not look retryable, or a retry with its Idempotency-Key books twice
+            ServiceUnavailableException notSaved = outcomeUnknown
+                    ? new BookingOutcomeUnknownException(
+                            "Booking may not have been saved, please check your bookings before trying again")
+                    : new ServiceUnavailableException("Booking could not be saved, please try again");
+            applied.stream()
+                    .filter(result -> notCommitted.contains(result.booking().getId()))
+                    .forEach(result -> result.command().future().completeExceptionally(notSaved));
+        }
+
+        /**
+         * Rejects commands whose batch could not be committed. Bookings already
+         * cancelled in MongoDB stay cancelled, so their seats are released on their own.
+         */
+        private void fail(List<Command> commands, Map<String, Cancellation> cancelled, RuntimeException e) {
+            for (Command command : commands) {
+                Cancellation cancellation = command instanceof CancelCommand cancel
+                        ? cancelled.get(cancel.booking().getId())
+                        : null;
+                if (cancellation == null || cancellation.command() != command) {
+                    command.future().completeExceptionally(e);
+                    continue;
+                }
+                state = null;
+                int[] seatIndexes = seatIndexes(cancellation.booking());
+                try {
+                    if (seatIndexes.length > 0 && !showtimeRepository.releaseSeats(showtimeId, seatIndexes)) {
+                        log.warn("Seats of booking {} were not all marked as booked in showtime {}",
+                                cancellation.booking().getId(), showtimeId);
+                    }
+                    seatMapBroadcaster.publish(showtimeId, seatIndexes, SeatStatus.AVAILABLE);
+                } catch (RuntimeException releaseError) {
+                    log.error("Booking {} is cancelled but its seats {} in showtime {} could not be released",
+                            cancellation.booking().getId(), seatIndexes, showtimeId, releaseError);
+                }
+                command.future().complete(cancellation.booking());
+            }
+        }
+
+        private SeatInventory loadState() {
+            Showtime showtime = showtimeRepository.findById(showtimeId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Showtime not found"));
+            SeatInventory inventory = seatInventoryService.getInventory(showtime);
+            if (layout == null) {
+                layout = seatInventoryService.getLayout(showtime);
+            }
+            return SeatInventory.builder()
+                    .rows(inventory.getRows())
+                    .seatsPerRow(inventory.getSeatsPerRow())
+                    .booked(inventory.getBooked().clone())
+                    .build();
+        }
+
+        private Applied apply(Command command, Map<String, Cancellation> cancelled) {
+            if (command instanceof BookCommand book) {
+                BookingCreateRequest request = book.request();
+                int[] seatIndexes = seatInventoryService.resolve(layout, request.getSeats());
+                for (int i = 0; i < seatIndexes.length; i++) {
+                    if (state.isBooked(seatIndexes[i])) {
+                        throw new BadRequestException("Seat " + request.getSeats().get(i).getSeatIdentifier() + " is already booked");
+                    }
+                }
+                seatHoldService.checkNotHeldByOthers(showtimeId, seatIndexes, request.getSeats(), book.userId());
+                for (int seatIndex : seatIndexes) {
+                    state.book(seatIndex);
+                }
+
+                Booking booking = Booking.builder()
+                        .userId(book.userId())
+                        .showtimeId(showtimeId)
+                        .seats(request.getSeats())
+                        .totalAmount(request.getTotalAmount())
+                        .build();
+                booking.generateIdIfNotSet();
+                return new Applied(command, booking, seatIndexes);
+            }
+
+            CancelCommand cancel = (CancelCommand) command;
+            Cancellation cancellation = cancelled.get(cancel.booking().getId());
+            if (cancellation == null) {
+                // Only the request that moves the booking out of "confirmed" may free its seats
+                Booking booking = bookingRepository.cancelIfConfirmed(cancel.booking().getId())
+                        .orElseThrow(() -> new BadRequestException("Booking is already cancelled"));
+                cancellation = new Cancellation(cancel, booking);
+                cancelled.put(booking.getId(), cancellation);
+            } else if (cancellation.command() != cancel) {
+                throw new BadRequestException("Booking is already cancelled");
+            }
+
+            int[] seatIndexes = Arrays.stream(seatIndexes(cancellation.booking()))
+                    .filter(state::isBooked)
+                    .toArray();
+            for (int seatIndex : seatIndexes) {
+                state.release(seatIndex);
+            }
+            return new Applied(command, cancellation.booking(), seatIndexes);
+        }
+
+        private int[] seatIndexes(Booking booking) {
+            return booking.getSeats().stream()
+                    .mapToInt(layout::indexOf)
+                    .filter(seatIndex -> seatIndex >= 0)
+                    .toArray();
+        }
+
+        /**
+         * Writes the net seat changes of a batch. Returns false if the seat words changed underneath us.
+         */
+        private boolean commitSeats(long[] before, int availableDelta) {
+            long[] after = state.getBooked();
+            Map<Integer, long[]> changedWords = new TreeMap<>();
+            for (int word = 0; word < after.length; word++) {
+                if (before[word] != after[word]) {
+                    changedWords.put(word, new long[] {before[word], after[word]});
+                }
+            }
+            return changedWords.isEmpty()
+                    || showtimeRepository.compareAndSetSeatWords(showtimeId, changedWords, availableDelta);
+        }
+
+        /**
+         * Inserts the new bookings of a committed batch and gives back the seats
+         * of those that could not be saved.
+         *
+         * @return IDs of the bookings that were not saved, or null if that cannot be told
+         */
+        private Set<String> saveBookings(List<Applied> applied) {
+            List<Booking> newBookings = applied.stream()
+                    .filter(result -> result.command() instanceof BookCommand)
+                    .map(Applied::booking)
+                    .toList();
+            if (newBookings.isEmpty()) {
+                return Set.of();
+            }
+
+            Set<String> unsaved;
+            try {
+                unsaved = new HashSet<>(bookingRepository.saveBatch(newBookings));
+            } catch (RuntimeException e) {
+                log.error("Failed to save bookings for showtime {}, checking which were written", showtimeId, e);
+                unsaved = findMissing(newBookings);
+                if (unsaved == null) {
+                    // Some of them may exist, so none of them may lose their seats
+                    log.error("Could not tell which bookings of showtime {} were saved; seats {} stay booked",
+                            showtimeId, Arrays.toString(seatIndexesOf(applied, null)));
+                    return null;
+                }
+            }
+            if (!unsaved.isEmpty()) {
+                log.warn("{} bookings of showtime {} were not saved", unsaved.size(), showtimeId);
+                releaseUnsaved(seatIndexesOf(applied, unsaved));
+            }
+            return unsaved;
+        }
+
+        /**
+         * Lists the bookings that are not in MongoDB, or null if that cannot be told.
+         */
+        private Set<String> findMissing(List<Booking> bookings) {
+            Set<String> missing = bookings.stream().map(Booking::getId).collect(Collectors.toCollection(HashSet::new));
+            try {
+                bookingRepository.findAllById(List.copyOf(missing)).forEach(booking -> missing.remove(booking.getId()));
+                return missing;
+            } catch (RuntimeException e) {
+                log.warn("Could not look up bookings of showtime {}: {}", showtimeId, e.getMessage());
+                return null;
+            }
+        }
+
+        /**
+         * Gives back seats claimed for bookings that were not saved, retrying on errors.
+         */
+        private void releaseUnsaved(int[] seatIndexes) {
+            for (int attempt = 1; attempt <= MAX_COMMIT_ATTEMPTS; attempt++) {
+                try {
+                    if (showtimeRepository.releaseSeats(showtimeId, seatIndexes)) {
+                        for (int seatIndex : seatIndexes) {
+                            state.release(seatIndex);
+                        }
+                    } else {
+                        // Nobody else frees booked seats, so this should not happen; reload to be safe
+                        log.error("Seats {} of unsaved bookings were not all booked in showtime {}",
+                                seatIndexes, showtimeId);
+                        state = null;
+                    }
+                    return;
+                } catch (RuntimeException e) {
+                    log.warn("Failed to release seats of unsaved bookings in showtime {} (attempt {}): {}",
+                            showtimeId, attempt, e.getMessage());
+                }
+            }
+            log.error("Seats {} of showtime {} stay booked without a booking; release them manually",
+                    seatIndexes, showtimeId);
+            state = null;
+        }
+
+        private Set<String> newBookingIds(List<Applied> applied) {
+            return applied.stream()
+                    .filter(result -> result.command() instanceof BookCommand)
+                    .map(result -> result.booking().getId())
+                    .collect(Collectors.toSet());
+        }
+
+        /**
+         * Collects the seats of the new bookings in a batch, only those with the given IDs if not null.
+         */
+        private int[] seatIndexesOf(List<Applied> applied, Set<String> bookingIds) {
+            return applied.stream()
+                    .filter(result -> result.command() instanceof BookCommand)
+                    .filter(result -> bookingIds == null || bookingIds.contains(result.booking().getId()))
+                    .flatMapToInt(result -> Arrays.stream(result.seatIndexes()))
+                    .toArray();
+        }
+
+        private void publish(List<Applied> applied) {
+            List<Integer> booked = new ArrayList<>();
+            List<Integer> released = new ArrayList<>();
+            for (Applied result : applied) {
+                List<Integer> target = result.command() instanceof BookCommand ? booked : released;
+                for (int seatIndex : result.seatIndexes()) {
+                    target.add(seatIndex);
+                }
+            }
+            if (!released.isEmpty()) {
+                seatMapBroadcaster.publish(showtimeId,
+                        released.stream().mapToInt(Integer::intValue).toArray(), SeatStatus.AVAILABLE);
+            }
+            if (!booked.isEmpty()) {
+                seatMapBroadcaster.publish(showtimeId,
+                        booked.stream().mapToInt(Integer::intValue).toArray(), SeatStatus.BOOKED);
+            }
+        }
+
+        private void complete(Applied result) {
+            if (result.command() instanceof BookCommand book) {
+                try {
+                    seatHoldService.releaseSeats(showtimeId, result.seatIndexes(), book.userId());
+                } catch (RuntimeException e) {
+                    // The booking is stored; a leftover hold only lasts until it expires
+                    log.warn("Failed to drop holds on booked seats {} of showtime {}: {}",
+                            Arrays.toString(result.seatIndexes()), showtimeId, e.getMessage());
+                }
+            }
+            result.command().future().complete(result.booking());
+        }
+    }
+}
@@ -1,16 +1,24 @@
 package com.moviebooking.service;
 
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import com.moviebooking.dto.BookingCreateRequest;
+import com.moviebooking.enums.SeatStatus;
 import com.moviebooking.exception.BadRequestException;
+import com.moviebooking.exception.BookingOutcomeUnknownException;
 import com.moviebooking.exception.ResourceNotFoundException;
+import com.moviebooking.exception.ServiceUnavailableException;
 import com.moviebooking.models.Booking;
-import com.moviebooking.models.Seat;
+import com.moviebooking.models.SeatInventory;
+import com.moviebooking.models.SeatLayoutTemplate;
 import com.moviebooking.models.Showtime;
 import com.moviebooking.repository.BookingRepository;
 import com.moviebooking.repository.ShowtimeRepository;
@@ -24,13 +32,18 @@ import lombok.extern.slf4j.Slf4j;
  * <p>This service handles all booking-related business logic including:</p>
  * <ul>
  *   <li>Creating new bookings</li>
- *   <li>Validating seat availability</li>
+ *   <li>Validating seat availability against the showtime's seat inventory</li>
  *   <li>Updating seat counts</li>
  *   <li>Retrieving user booking history</li>
  * </ul>
  * 
- * <p>The service ensures data consistency by using transactional operations
- * and proper validation to prevent double bookings.</p>
+ * <p>The service prevents double bookings by claiming seats with a single
+ * conditional update on the showtime document, so the availability check
+ * and the seat update happen atomically on the database server. Within a
+ * node, bookings and cancellations for the same showtime are additionally
+ * serialized through {@link ShowtimeLockManager}. Showtimes with very high
+ * demand can instead be routed through {@link BookingSequencer}, which
+ * applies their bookings on a single writer thread in batches.</p>
  * 
  * @author Movie Booking Team
  * @version 1.0.0
@@ -39,11 +52,21 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class BookingService {
     
     private final BookingRepository bookingRepository;
     private final ShowtimeRepository showtimeRepository;
+    private final SeatInventoryService seatInventoryService;
+    private final SeatHoldService seatHoldService;
+    private final ShowtimeLockManager showtimeLockManager;
+    private final BookingSequencer bookingSequencer;
+    private final SeatMapBroadcaster seatMapBroadcaster;
+    
+    /**
+     * How long a request waits for its sequenced booking or cancellation before giving up.
+     */
+    @Value("${booking.sequencer.wait-timeout:10s}")
+    private Duration waitTimeout;
     
     /**
      * Creates a new booking for a user.
@@ -52,8 +75,8 @@ public class BookingService {
      * <ul>
      *   <li>Verifies the showtime exists</li>
      *   <li>Checks seat availability</li>
-     *   <li>Validates that seats are not already booked</li>
-     *   <li>Updates the available seat count</li>
+     *   <li>Validates that seats are not already booked or held by another user</li>
+     *   <li>Atomically claims the seats and updates the available seat count</li>
      * </ul>
      * 
      * @param request the booking creation request containing showtime and seat details
@@ -61,10 +84,21 @@ public class BookingService {
      * @return the created booking entity
      * @throws ResourceNotFoundException if the showtime is not found
      * @throws BadRequestException if seats are already booked or invalid
+     * @throws ServiceUnavailableException if the showtime is too busy to lock in time
      */
     public Booking createBooking(BookingCreateRequest request, String userId) {
         log.info("Creating booking for user: {} and showtime: {}", userId, request.getShowtimeId());
-        
+        if (bookingSequencer.isSequenced(request.getShowtimeId())) {
+            return await(bookingSequencer.submitBooking(request, userId));
+        }
+        return showtimeLockManager.withLock(request.getShowtimeId(), () -> claimSeatsAndSave(request, userId));
+    }
+    
+    /**
+     * Validates and claims the requested seats, then stores the booking.
+     * Runs while holding the showtime's lock stripe.
+     */
+    private Booking claimSeatsAndSave(BookingCreateRequest request, String userId) {
         // Validate showtime exists
         Showtime showtime = showtimeRepository.findById(request.getShowtimeId())
                 .orElseThrow(() -> new ResourceNotFoundException("Showtime not found"));
@@ -74,20 +108,19 @@ public class BookingService {
             throw new BadRequestException("Not enough available seats for this showtime");
         }
         
-        // Check seat availability by looking at existing bookings
-        List<Booking> existingBookings = bookingRepository.findByShowtimeId(request.getShowtimeId());
-        List<Seat> bookedSeats = new ArrayList<>();
-        existingBookings.forEach(booking -> bookedSeats.addAll(booking.getSeats()));
-        
         // Validate that requested seats are not already booked
-        for (Seat newSeat : request.getSeats()) {
-            for (Seat bookedSeat : bookedSeats) {
-                if (bookedSeat.getRow().equals(newSeat.getRow()) && 
-                    bookedSeat.getNumber().equals(newSeat.getNumber())) {
-                    throw new BadRequestException("Seat " + newSeat.getSeatIdentifier() + " is already booked");
-                }
+        SeatInventory inventory = seatInventoryService.getInventory(showtime);
+        int[] seatIndexes = seatInventoryService.resolve(seatInventoryService.getLayout(showtime), request.getSeats());
+        for (int i = 0; i < seatIndexes.length; i++) {
+            if (inventory.isBooked(seatIndexes[i])) {
+                throw new BadRequestException("Seat " + request.getSeats().get(i).getSeatIdentifier() + " is already booked");
             }
         }
+        seatHoldService.checkNotHeldByOthers(showtime.getId(), seatIndexes, request.getSeats(), userId);
+        
+        // Claim the seats; fails if another request took any of them in the meantime
+        showtimeRepository.claimSeats(showtime.getId(), seatIndexes)
+                .orElseThrow(() -> new BadRequestException("One or more selected seats are no longer available"));
         
         // Create the booking
         Booking booking = Booking.builder()
@@ -100,19 +133,18 @@ public class BookingService {
         // Generate ID for the booking
         booking.generateIdIfNotSet();
         
-        // Save the booking
-        bookingRepository.save(booking);
-        
-        // Update available seats count
+        // Save the booking, giving the seats back if that fails
         try {
-            showtime.bookSeats(request.getSeats().size());
-            showtimeRepository.save(showtime);
-        } catch (IllegalArgumentException e) {
-            // Rollback booking if seat update fails
-            bookingRepository.delete(booking);
-            throw new BadRequestException("Failed to update seat availability: " + e.getMessage());
+            bookingRepository.save(booking);
+        } catch (RuntimeException e) {
+            showtimeRepository.releaseSeats(showtime.getId(), seatIndexes);
+            throw e;
         }
         
+        // The seats are booked now, so the user's hold on them is no longer needed
+        seatHoldService.releaseSeats(showtime.getId(), seatIndexes, userId);
+        seatMapBroadcaster.publish(showtime.getId(), seatIndexes, SeatStatus.BOOKED);
+        
         log.info("Successfully created booking: {} for user: {}", booking.getId(), userId);
         return booking;
     }
@@ -149,6 +181,7 @@ public class BookingService {
      * @return the cancelled booking
      * @throws ResourceNotFoundException if the booking is not found
      * @throws BadRequestException if the user is not authorized to cancel this booking
+     * @throws ServiceUnavailableException if the showtime is too busy to lock in time
      */
     public Booking cancelBooking(String bookingId, String userId) {
         log.info("Cancelling booking: {} for user: {}", bookingId, userId);
@@ -160,23 +193,68 @@ public class BookingService {
             throw new BadRequestException("You can only cancel your own bookings");
         }
         
-        // Check if booking is already cancelled
-        if (booking.isCancelled()) {
-            throw new BadRequestException("Booking is already cancelled");
+        if (bookingSequencer.isSequenced(booking.getShowtimeId())) {
+            if (booking.isCancelled()) {
+                throw new BadRequestException("Booking is already cancelled");
+            }
+            return await(bookingSequencer.submitCancellation(booking));
         }
+        return showtimeLockManager.withLock(booking.getShowtimeId(), () -> cancelAndReleaseSeats(booking));
+    }
+    
+    /**
+     * Marks a booking as cancelled and gives its seats back to the showtime.
+     * Runs while holding the showtime's lock stripe.
+     */
+    private Booking cancelAndReleaseSeats(Booking confirmed) {
+        String bookingId = confirmed.getId();
+        Showtime showtime = showtimeRepository.findById(confirmed.getShowtimeId())
+                .orElseThrow(() -> new ResourceNotFoundException("Showtime not found"));
         
-        // Cancel the booking
-        booking.cancel();
-        bookingRepository.save(booking);
+        // A showtime from before seat inventories gets one built from its confirmed bookings here.
+        // That has to happen before the cancellation, or the backfill would already leave these seats out.
+        SeatInventory inventory = seatInventoryService.getInventory(showtime);
         
-        // Release the seats back to available
-        Showtime showtime = showtimeRepository.findById(booking.getShowtimeId())
-                .orElseThrow(() -> new ResourceNotFoundException("Showtime not found"));
+        // Cancel the booking unless it is already cancelled
+        Booking booking = bookingRepository.cancelIfConfirmed(bookingId)
+                .orElseThrow(() -> new BadRequestException("Booking is already cancelled"));
         
-        showtime.setAvailableSeats(showtime.getAvailableSeats() + booking.getNumberOfSeats());
-        showtimeRepository.save(showtime);
+        // Release the seats back to available, skipping any the inventory does not count as booked
+        SeatLayoutTemplate layout = seatInventoryService.getLayout(showtime);
+        int[] seatIndexes = booking.getSeats().stream()
+                .mapToInt(layout::indexOf)
+                .filter(seatIndex -> seatIndex >= 0 && inventory.isBooked(seatIndex))
+                .toArray();
+        if (seatIndexes.length > 0) {
+            if (!showtimeRepository.releaseSeats(showtime.getId(), seatIndexes)) {
+                log.warn("Seats of booking {} were not all marked as booked in showtime {}",
+                        bookingId, showtime.getId());
+            }
+            seatMapBroadcaster.publish(showtime.getId(), seatIndexes, SeatStatus.AVAILABLE);
+        }
         
         log.info("Successfully cancelled booking: {}", bookingId);
         return booking;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Waits for a sequenced command, rethrowing the exception it was rejected with.
+     * The command may still be applied after a timeout.
+     */
+    private Booking await(CompletableFuture<Booking> result) {
+        try {
+            return result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new BookingOutcomeUnknownException(
+                    "Showtime is busy, please check your bookings before trying again");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Showtime is busy, please try again");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.moviebooking.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+import com.moviebooking.dto.CursorPage;
+import com.moviebooking.models.Movie;
+import com.moviebooking.models.Theatre;
+import com.moviebooking.repository.KeysetPageReader;
+import com.moviebooking.repository.MovieRepository;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read-through cache of the movie and theatre catalog.
+ *
+ * <p>Movies by ID and listing pages of movies and theatres are kept in
+ * size-bounded Caffeine caches, next to one snapshot each of the full movie
+ * and theatre lists, which serve unpaginated listings. The snapshots hold
+ * whole documents; sparse fieldsets are applied when they are written. An entry older than
+ * {@code booking.catalog.refresh-after} is still served while it is reloaded
+ * in the background, so readers never wait on MongoDB for a cached entry.
+ * Entries not refreshed within {@code booking.catalog.expire-after} are
+ * dropped, which bounds staleness should an invalidation be missed.</p>
+ *
+ * <p>Writes on this node invalidate the affected entries directly. Writes on
+ * other nodes arrive through {@link CatalogChangeListener}. The cache is
+ * warmed by an {@link ApplicationRunner}, which Spring Boot runs before the
+ * application reports itself ready for traffic.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+@Slf4j
+public class CatalogCache implements ApplicationRunner {
+
+    private static final String ALL = "all";
+
+    private final KeysetPageReader keysetPageReader;
+    private final int warmPageSize;
+
+    private final LoadingCache<String, Movie> movies;
+    private final LoadingCache<PageKey, CursorPage<Movie>> moviePages;
+    private final LoadingCache<PageKey, CursorPage<Theatre>> theatrePages;
+    private final LoadingCache<String, List<Movie>> allMovies;
+    private final LoadingCache<String, List<Theatre>> allTheatres;
+
+    public CatalogCache(
+            MovieRepository movieRepository,
+            KeysetPageReader keysetPageReader,
+            @Value("${booking.catalog.cache-size:1000}") long cacheSize,
+            @Value("${booking.catalog.refresh-after:1m}") Duration refreshAfter,
+            @Value("${booking.catalog.expire-after:10m}") Duration expireAfter,
+            @Value("${booking.catalog.warm-page-size:20}") int warmPageSize) {
+        this.keysetPageReader = keysetPageReader;
+        this.warmPageSize = warmPageSize;
+        this.movies = newCache(cacheSize, refreshAfter, expireAfter)
+                .build(id -> movieRepository.findById(id).orElse(null));
+        this.moviePages = newCache(cacheSize, refreshAfter, expireAfter)
+                .build(key -> keysetPageReader.findPage(Movie.class, null, key.after(), key.limit(), key.fields()));
+        this.theatrePages = newCache(cacheSize, refreshAfter, expireAfter)
+                .build(key -> keysetPageReader.findPage(Theatre.class, null, key.after(), key.limit(), key.fields()));
+        this.allMovies = newCache(1, refreshAfter, expireAfter)
+                .build(key -> readAll(Movie.class));
+        this.allTheatres = newCache(1, refreshAfter, expireAfter)
+                .build(key -> readAll(Theatre.class));
+    }
+
+    /**
+     * Gets a movie.
+     *
+     * @param id the movie ID
+     * @return the movie, or null if it does not exist
+     */
+    public Movie getMovie(String id) {
+        return movies.get(id);
+    }
+
+    /**
+     * Gets a page of movies.
+     *
+     * @param after the ID after which the page starts, or null for the first page
+     * @param limit the maximum number of movies in the page
+     * @param fields the properties to return besides the ID, or null for all
+     * @return the page
+     */
+    public CursorPage<Movie> getMoviePage(String after, int limit, Set<String> fields) {
+        return moviePages.get(new PageKey(after, limit, fields == null ? null : Set.copyOf(fields)));
+    }
+
+    /**
+     * Gets a page of theatres.
+     *
+     * @param after the ID after which the page starts, or null for the first page
+     * @param limit the maximum number of theatres in the page
+     * @param fields the properties to return besides the ID, or null for all
+     * @return the page
+     */
+    public CursorPage<Theatre> getTheatrePage(String after, int limit, Set<String> fields) {
+        return theatrePages.get(new PageKey(after, limit, fields == null ? null : Set.copyOf(fields)));
+    }
+
+    /**
+     * Gets every movie.
+     *
+     * @return the movies in ID order, with all properties
+     */
+    public List<Movie> getAllMovies() {
+        return allMovies.get(ALL);
+    }
+
+    /**
+     * Gets every theatre.
+     *
+     * @return the theatres in ID order, with all properties
+     */
+    public List<Theatre> getAllTheatres() {
+        return allTheatres.get(ALL);
+    }
+
+    /**
+     * Drops everything cached for a movie that was created, changed or deleted.
+     *
+     * @param id the movie ID
+     */
+    public void invalidateMovie(String id) {
+        movies.invalidate(id);
+        moviePages.invalidateAll();
+        allMovies.invalidateAll();
+    }
+
+    /**
+     * Drops the cached theatre listings after a theatre was created, changed or deleted.
+     */
+    public void invalidateTheatres() {
+        theatrePages.invalidateAll();
+        allTheatres.invalidateAll();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        try {
+            getAllMovies().forEach(movie -> movies.put(movie.getId(), movie));
+            getAllTheatres();
+            getMoviePage(null, warmPageSize, null);
+            getTheatrePage(null, warmPageSize, null);
+            log.info("Warmed catalog cache with {} movies in {} ms",
+                    movies.estimatedSize(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Could not warm catalog cache: {}", e.getMessage());
+        }
+    }
+
+    private <T> List<T> readAll(Class<T> type) {
+        try (Stream<T> all = keysetPageReader.stream(type, null, null)) {
+            return all.toList();
+        }
+    }
+
+    private static Caffeine<Object, Object> newCache(long size, Duration refreshAfter, Duration expireAfter) {
+        return Caffeine.newBuilder()
+                .maximumSize(size)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter);
+    }
+
+    private record PageKey(String after, int limit, Set<String> fields) {
+    }
+}
@@ -0,0 +1,136 @@
+package com.moviebooking.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import com.moviebooking.models.Movie;
+import com.moviebooking.models.Showtime;
+import com.moviebooking.models.Theatre;
+
+import org.bson.BsonValue;
+import org.bson.Document;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Invalidates the {@link CatalogCache} and updates the {@link MovieSearchIndex},
+ * {@link MovieFacetIndex} and {@link NowShowingView} when movies, theatres or
+ * showtimes change on any node.
+ *
+ * <p>Listens to MongoDB change streams on the movie and theatre collections,
+ * and to inserts into the showtime collection,
+ * so a write on one node reaches the caches of all others within moments.
+ * Change streams need a replica set, which every Atlas cluster is; set
+ * {@code booking.catalog.change-streams} to false for a standalone server,
+ * where the cache then relies on {@code booking.catalog.expire-after}.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+@ConditionalOnProperty(name = "booking.catalog.change-streams", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class CatalogChangeListener implements SmartLifecycle {
+
+    private final CatalogCache catalogCache;
+    private final MovieSearchIndex movieSearchIndex;
+    private final MovieFacetIndex movieFacetIndex;
+    private final NowShowingView nowShowingView;
+    private final MessageListenerContainer container;
+
+    public CatalogChangeListener(MongoTemplate mongoTemplate, CatalogCache catalogCache,
+                                 MovieSearchIndex movieSearchIndex, MovieFacetIndex movieFacetIndex,
+                                 NowShowingView nowShowingView) {
+        this.catalogCache = catalogCache;
+        this.movieSearchIndex = movieSearchIndex;
+        this.movieFacetIndex = movieFacetIndex;
+        this.nowShowingView = nowShowingView;
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("catalog-changes-");
+        executor.setDaemon(true);
+        this.container = new DefaultMessageListenerContainer(mongoTemplate, executor,
+                error -> log.warn("Catalog change stream failed: {}", error.getMessage()));
+
+        container.register(ChangeStreamRequest.builder(this::onMovieChange)
+                .collection(mongoTemplate.getCollectionName(Movie.class))
+                .build(), Document.class);
+        container.register(ChangeStreamRequest.builder(this::onTheatreChange)
+                .collection(mongoTemplate.getCollectionName(Theatre.class))
+                .build(), Document.class);
+        // Showtimes are updated on every booking, so only inserts are followed
+        container.register(ChangeStreamRequest.builder(this::onShowtimeInsert)
+                .collection(mongoTemplate.getCollectionName(Showtime.class))
+                .filter(Aggregation.newAggregation(Aggregation.match(Criteria.where("operationType").is("insert"))))
+                .build(), Showtime.class);
+    }
+
+    @Override
+    public void start() {
+        container.start();
+    }
+
+    @Override
+    public void stop() {
+        container.stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return container.isRunning();
+    }
+
+    private void onMovieChange(Message<ChangeStreamDocument<Document>, Document> message) {
+        String id = documentId(message.getRaw());
+        if (id == null) {
+            return;
+        }
+        catalogCache.invalidateMovie(id);
+        Movie movie = catalogCache.getMovie(id);
+        if (movie != null) {
+            movieSearchIndex.index(movie);
+            movieFacetIndex.index(movie);
+        } else {
+            movieSearchIndex.remove(id);
+            movieFacetIndex.remove(id);
+        }
+    }
+
+    private void onTheatreChange(Message<ChangeStreamDocument<Document>, Document> message) {
+        catalogCache.invalidateTheatres();
+    }
+
+    private void onShowtimeInsert(Message<ChangeStreamDocument<Document>, Showtime> message) {
+        Showtime showtime = message.getBody();
+        if (showtime != null) {
+            nowShowingView.add(showtime);
+        }
+    }
+
+    /**
+     * Gets the changed document's ID in the form the application uses.
+     */
+    private static String documentId(ChangeStreamDocument<Document> change) {
+        if (change == null || change.getDocumentKey() == null) {
+            return null;
+        }
+        BsonValue id = change.getDocumentKey().get("_id");
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+}
@@ -0,0 +1,240 @@
+package com.moviebooking.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.moviebooking.dto.BookingCreateRequest;
+import com.moviebooking.exception.BadRequestException;
+import com.moviebooking.exception.BookingOutcomeUnknownException;
+import com.moviebooking.exception.ServiceUnavailableException;
+import com.moviebooking.exception.TooManyRequestsException;
+import com.moviebooking.models.Booking;
+import com.moviebooking.models.IdempotencyRecord;
+import com.moviebooking.repository.IdempotencyRecordRepository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service class that makes booking creation safe to retry.
+ *
+ * <p>Clients send an {@code Idempotency-Key} header with
+ * {@code POST /api/bookings}. The booking created for a key is kept in a
+ * size- and time-bounded in-memory cache, backed by the
+ * {@code idempotency_keys} collection so replays still work after a restart
+ * or on another node. A replayed key returns the original booking without
+ * touching the showtime or booking collections.</p>
+ *
+ * <p>Before creating the booking, a request claims its key by inserting a
+ * record without booking, so only one request per key gets through on any
+ * node. Concurrent requests on the same node wait for the first request and
+ * share its result; on other nodes they are told to retry. Only successful
+ * bookings are remembered; a rejected request releases its claim and can be
+ * retried with the same key. A request whose booking may or may not have
+ * been written keeps its claim, as does one cut short by a node that
+ * stopped; such claims lapse after {@code booking.idempotency.claim-timeout}.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final Duration retention;
+    private final Duration claimTimeout;
+    private final Cache<String, Booking> results;
+    private final Map<String, CompletableFuture<Booking>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(
+            IdempotencyRecordRepository idempotencyRecordRepository,
+            @Value("${booking.idempotency.retention:24h}") Duration retention,
+            @Value("${booking.idempotency.cache-size:10000}") long cacheSize,
+            @Value("${booking.idempotency.claim-timeout:30s}") Duration claimTimeout) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.retention = retention;
+        this.claimTimeout = claimTimeout;
+        this.results = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    @PostConstruct
+    void createExpiryIndex() {
+        try {
+            idempotencyRecordRepository.ensureExpiryIndex(retention);
+        } catch (RuntimeException e) {
+            log.warn("Could not create expiry index for idempotency keys: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Creates a booking at most once per user and idempotency key.
+     *
+     * <p>Replays are answered before {@code createBooking} runs, so any
+     * admission checks inside it only apply to new bookings.</p>
+     *
+     * @param userId the ID of the user making the booking
+     * @param idempotencyKey the client-supplied idempotency key
+     * @param request the booking creation request
+     * @param createBooking the action that creates the booking
+     * @return the booking created for this key, either now or by an earlier request
+     * @throws BadRequestException if the key is invalid or was used for a different booking
+     * @throws TooManyRequestsException if another node is still processing a request with this key
+     */
+    public Booking createOnce(String userId, String idempotencyKey, BookingCreateRequest request,
+                              Supplier<Booking> createBooking) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = userId + ":" + idempotencyKey;
+
+        Booking cached = results.getIfPresent(id);
+        if (cached != null) {
+            log.info("Replaying booking: {} for idempotency key: {}", cached.getId(), idempotencyKey);
+            return checkSameRequest(cached, request);
+        }
+
+        CompletableFuture<Booking> result = new CompletableFuture<>();
+        CompletableFuture<Booking> running = inFlight.putIfAbsent(id, result);
+        if (running != null) {
+            log.info("Waiting for in-flight request with idempotency key: {}", idempotencyKey);
+            return checkSameRequest(await(running), request);
+        }
+
+        try {
+            Booking booking = findStored(id);
+            if (booking == null) {
+                booking = createClaimed(id, createBooking);
+            } else {
+                log.info("Replaying stored booking: {} for idempotency key: {}", booking.getId(), idempotencyKey);
+                results.put(id, booking);
+            }
+            result.complete(booking);
+            return checkSameRequest(booking, request);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, result);
+        }
+    }
+
+    /**
+     * Claims the key and creates the booking, or replays the booking of whoever claimed it first.
+     */
+    private Booking createClaimed(String id, Supplier<Booking> createBooking) {
+        if (!idempotencyRecordRepository.claim(id, claimTimeout)) {
+            Booking stored = idempotencyRecordRepository.findById(id)
+                    .map(IdempotencyRecord::getBooking)
+                    .orElse(null);
+            if (stored == null) {
+                throw new TooManyRequestsException("A booking with this Idempotency-Key is still being processed",
+                        Math.max(1, claimTimeout.toSeconds()));
+            }
+            results.put(id, stored);
+            return stored;
+        }
+
+        Booking booking;
+        try {
+            booking = createBooking.get();
+        } catch (BookingOutcomeUnknownException e) {
+            // The booking may exist; keep the claim so a retry cannot book again before it lapses
+            log.warn("Keeping idempotency key claim after a booking of unknown outcome: {}", e.getMessage());
+            throw e;
+        } catch (RuntimeException e) {
+            release(id);
+            throw e;
+        }
+        results.put(id, booking);
+        store(id, booking);
+        return booking;
+    }
+
+    /**
+     * Gives up a claim so the key can be retried. If this fails, the claim lapses after the claim timeout.
+     */
+    private void release(String id) {
+        try {
+            idempotencyRecordRepository.deleteById(id);
+        } catch (RuntimeException e) {
+            log.warn("Failed to release idempotency key claim: {}", e.getMessage());
+        }
+    }
+
+    private Booking findStored(String id) {
+        // Another request may have finished between the cache check and claiming the key
+        Booking cached = results.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        return idempotencyRecordRepository.findById(id)
+                .map(IdempotencyRecord::getBooking)
+                .orElse(null);
+    }
+
+    /**
+     * Persists a result over the claim. The booking already exists at this point,
+     * so a failure is logged rather than reported; this node still replays it
+     * from memory.
+     */
+    private void store(String id, Booking booking) {
+        try {
+            idempotencyRecordRepository.save(IdempotencyRecord.builder()
+                    .id(id)
+                    .booking(booking)
+                    .build());
+        } catch (RuntimeException e) {
+            log.error("Failed to store idempotency key for booking: {}", booking.getId(), e);
+        }
+    }
+
+    /**
+     * Rejects reuse of a key for a booking with different showtime or seats.
+     */
+    private Booking checkSameRequest(Booking booking, BookingCreateRequest request) {
+        if (!Objects.equals(booking.getShowtimeId(), request.getShowtimeId())
+                || !Objects.equals(booking.getSeats(), request.getSeats())) {
+            throw new BadRequestException("Idempotency-Key was already used for a different booking");
+        }
+        return booking;
+    }
+
+    /**
+     * Waits for the request already processing a key, at most as long as its claim would last.
+     */
+    private Booking await(CompletableFuture<Booking> result) {
+        try {
+            return result.get(claimTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("A booking with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("A booking with this Idempotency-Key is still being processed");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
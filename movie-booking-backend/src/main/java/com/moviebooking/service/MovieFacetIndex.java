@@ -0,0 +1,346 @@
+package com.moviebooking.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+import com.moviebooking.dto.MovieFacetResponse;
+import com.moviebooking.models.Movie;
+import com.moviebooking.repository.KeysetPageReader;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory faceted filter over the movie catalog.
+ *
+ * <p>Movies are numbered newest release first, and every genre and language
+ * value gets a bitmap of the movies that have it. Ratings and release dates
+ * are kept as sorted arrays, so a range filter is two binary searches plus
+ * setting the bits in between. A query ORs the bitmaps of the selected values
+ * of each facet, ANDs the range bitmaps, and then walks the remaining movies
+ * once, counting both facets and collecting the requested page on the way.</p>
+ *
+ * <p>Facet counts are disjunctive: genre counts apply every filter except the
+ * genre selection, and language counts every filter except the language
+ * selection, so the client can show how many movies each further choice would
+ * add.</p>
+ *
+ * <p>All of it lives in an immutable snapshot that is rebuilt whenever a
+ * movie changes, here or on another node. Queries read the current snapshot
+ * without locking and never touch MongoDB.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+@Slf4j
+public class MovieFacetIndex implements ApplicationRunner {
+
+    private final KeysetPageReader keysetPageReader;
+    private final Map<String, Movie> movies = new ConcurrentHashMap<>();
+
+    private volatile Snapshot snapshot = Snapshot.build(List.of());
+
+    public MovieFacetIndex(KeysetPageReader keysetPageReader) {
+        this.keysetPageReader = keysetPageReader;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        try (Stream<Movie> stream = keysetPageReader.stream(Movie.class, null, null)) {
+            stream.forEach(movie -> movies.put(movie.getId(), movie));
+            rebuild();
+            log.info("Built movie facets for {} movies in {} ms",
+                    movies.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Could not build movie facets: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Adds a movie to the facets, replacing any earlier version of it.
+     *
+     * @param movie the movie to add
+     */
+    public void index(Movie movie) {
+        if (!movie.equals(movies.put(movie.getId(), movie))) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Removes a movie from the facets.
+     *
+     * @param movieId the ID of the movie to remove
+     */
+    public void remove(String movieId) {
+        if (movies.remove(movieId) != null) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Filters the catalog and counts the facets of the result.
+     *
+     * @param genres the genres to match, any of them; empty for all
+     * @param languages the languages to match, any of them; empty for all
+     * @param minRating the lowest rating to match, or null
+     * @param maxRating the highest rating to match, or null
+     * @param releasedFrom the earliest release to match, inclusive, or null
+     * @param releasedBefore the release to stop at, exclusive, or null
+     * @param offset the number of matching movies to skip
+     * @param limit the maximum number of movies to return
+     * @return the page of matching movies, newest first, with the facet counts
+     */
+    public MovieFacetResponse query(Collection<String> genres, Collection<String> languages,
+                                    Double minRating, Double maxRating,
+                                    LocalDateTime releasedFrom, LocalDateTime releasedBefore,
+                                    int offset, int limit) {
+        Snapshot current = snapshot;
+        int size = current.movies.length;
+
+        BitSet base = new BitSet(size);
+        base.set(0, size);
+        if (minRating != null || maxRating != null) {
+            base.and(current.ratings.range(
+                    minRating == null ? Long.MIN_VALUE : ratingKey(minRating),
+                    maxRating == null ? Long.MAX_VALUE : ratingKey(maxRating) + 1));
+        }
+        if (releasedFrom != null || releasedBefore != null) {
+            base.and(current.releases.range(
+                    releasedFrom == null ? Long.MIN_VALUE : releaseKey(releasedFrom),
+                    releasedBefore == null ? Long.MAX_VALUE : releaseKey(releasedBefore)));
+        }
+        BitSet genreFilter = current.genres.union(genres);
+        BitSet languageFilter = current.languages.union(languages);
+
+        int[] genreCounts = new int[current.genres.labels.size()];
+        int[] languageCounts = new int[current.languages.labels.size()];
+        List<Movie> page = new ArrayList<>(Math.min(limit, size));
+        int total = 0;
+        for (int doc = base.nextSetBit(0); doc >= 0; doc = base.nextSetBit(doc + 1)) {
+            boolean genreMatch = genreFilter == null || genreFilter.get(doc);
+            boolean languageMatch = languageFilter == null || languageFilter.get(doc);
+            if (languageMatch && current.genres.values[doc] >= 0) {
+                genreCounts[current.genres.values[doc]]++;
+            }
+            if (genreMatch && current.languages.values[doc] >= 0) {
+                languageCounts[current.languages.values[doc]]++;
+            }
+            if (genreMatch && languageMatch) {
+                if (total >= offset && page.size() < limit) {
+                    page.add(current.movies[doc]);
+                }
+                total++;
+            }
+        }
+
+        return MovieFacetResponse.builder()
+                .total(total)
+                .movies(page)
+                .genres(current.genres.counts(genreCounts, genres))
+                .languages(current.languages.counts(languageCounts, languages))
+                .build();
+    }
+
+    private synchronized void rebuild() {
+        snapshot = Snapshot.build(movies.values());
+    }
+
+    private static long ratingKey(double rating) {
+        // Ratings have one decimal, so tenths compare exactly
+        return Math.round(rating * 10);
+    }
+
+    private static long releaseKey(LocalDateTime releaseDate) {
+        return releaseDate.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Immutable facet data of one version of the catalog.
+     */
+    private static final class Snapshot {
+
+        private final Movie[] movies;
+        private final Facet genres;
+        private final Facet languages;
+        private final SortedKeys ratings;
+        private final SortedKeys releases;
+
+        private Snapshot(Movie[] movies) {
+            this.movies = movies;
+            this.genres = new Facet(movies.length);
+            this.languages = new Facet(movies.length);
+            long[] ratingKeys = new long[movies.length];
+            long[] releaseKeys = new long[movies.length];
+            for (int doc = 0; doc < movies.length; doc++) {
+                Movie movie = movies[doc];
+                genres.add(doc, movie.getGenre());
+                languages.add(doc, movie.getLanguage());
+                ratingKeys[doc] = movie.getRating() == null ? SortedKeys.MISSING : ratingKey(movie.getRating());
+                releaseKeys[doc] = movie.getReleaseDate() == null
+                        ? SortedKeys.MISSING : releaseKey(movie.getReleaseDate());
+            }
+            this.ratings = new SortedKeys(ratingKeys);
+            this.releases = new SortedKeys(releaseKeys);
+        }
+
+        static Snapshot build(Collection<Movie> catalog) {
+            Movie[] movies = catalog.toArray(new Movie[0]);
+            Arrays.sort(movies, Comparator
+                    .comparing(Movie::getReleaseDate, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(Movie::getId));
+            return new Snapshot(movies);
+        }
+    }
+
+    /**
+     * Bitmaps of one facet, one per distinct value.
+     */
+    private static final class Facet {
+
+        /** Value ordinal of every movie, or -1 if it has none. */
+        private final int[] values;
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        private final List<String> labels = new ArrayList<>();
+        private final List<BitSet> bitmaps = new ArrayList<>();
+
+        Facet(int size) {
+            this.values = new int[size];
+        }
+
+        void add(int doc, String value) {
+            String key = normalize(value);
+            if (key.isEmpty()) {
+                values[doc] = -1;
+                return;
+            }
+            Integer ordinal = ordinals.get(key);
+            if (ordinal == null) {
+                ordinal = labels.size();
+                ordinals.put(key, ordinal);
+                labels.add(value.trim());
+                bitmaps.add(new BitSet());
+            }
+            values[doc] = ordinal;
+            bitmaps.get(ordinal).set(doc);
+        }
+
+        /**
+         * ORs the bitmaps of the selected values, or returns null if nothing is selected.
+         */
+        BitSet union(Collection<String> selected) {
+            if (selected == null || selected.isEmpty()) {
+                return null;
+            }
+            BitSet union = new BitSet(values.length);
+            for (String value : selected) {
+                Integer ordinal = ordinals.get(normalize(value));
+                if (ordinal != null) {
+                    union.or(bitmaps.get(ordinal));
+                }
+            }
+            return union;
+        }
+
+        /**
+         * Labels the counts, most frequent first; values without matches are left
+         * out unless they are selected.
+         */
+        Map<String, Integer> counts(int[] counts, Collection<String> selected) {
+            BitSet keep = new BitSet(counts.length);
+            for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+                if (counts[ordinal] > 0) {
+                    keep.set(ordinal);
+                }
+            }
+            if (selected != null) {
+                for (String value : selected) {
+                    Integer ordinal = ordinals.get(normalize(value));
+                    if (ordinal != null) {
+                        keep.set(ordinal);
+                    }
+                }
+            }
+            Map<String, Integer> result = new LinkedHashMap<>();
+            keep.stream().boxed()
+                    .sorted(Comparator.<Integer>comparingInt(ordinal -> -counts[ordinal])
+                            .thenComparing(labels::get))
+                    .forEach(ordinal -> result.put(labels.get(ordinal), counts[ordinal]));
+            return result;
+        }
+    }
+
+    /**
+     * Movies sorted by a numeric key, for range filters.
+     */
+    private static final class SortedKeys {
+
+        static final long MISSING = Long.MIN_VALUE;
+
+        private final long[] keys;
+        private final int[] docs;
+        private final int size;
+
+        SortedKeys(long[] keysByDoc) {
+            this.size = keysByDoc.length;
+            this.docs = IntStream.range(0, size)
+                    .filter(doc -> keysByDoc[doc] != MISSING)
+                    .boxed()
+                    .sorted(Comparator.comparingLong(doc -> keysByDoc[doc]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            this.keys = new long[docs.length];
+            for (int i = 0; i < docs.length; i++) {
+                keys[i] = keysByDoc[docs[i]];
+            }
+        }
+
+        /**
+         * Gets the movies with a key in {@code [from, to)}; movies without a key never match.
+         */
+        BitSet range(long from, long to) {
+            BitSet result = new BitSet(size);
+            for (int i = lowerBound(from), end = lowerBound(to); i < end; i++) {
+                result.set(docs[i]);
+            }
+            return result;
+        }
+
+        private int lowerBound(long key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.moviebooking.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+import com.moviebooking.models.Movie;
+import com.moviebooking.repository.KeysetPageReader;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory full-text index of the movie catalog.
+ *
+ * <p>Titles, genres, languages and descriptions are tokenized into an
+ * inverted index held in a sorted term dictionary. Matches are ranked with
+ * BM25 over a weighted term frequency, so a hit in the title counts more than
+ * one in the description. The dictionary is sorted, so the last word of a
+ * query is also matched as a prefix for type-ahead. Words of four or more
+ * letters also match terms one edit away, found through a map from every
+ * single-letter deletion of a term back to the term.</p>
+ *
+ * <p>The index is built at startup and updated as movies are created, here
+ * or on other nodes. Searches never touch MongoDB. A replaced movie is
+ * tombstoned and appended again rather than removed from its postings.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+@Slf4j
+public class MovieSearchIndex implements ApplicationRunner {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private static final float TITLE_WEIGHT = 3f;
+    private static final float GENRE_WEIGHT = 2f;
+    private static final float LANGUAGE_WEIGHT = 1f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    /** Score factor of a term matched only as a prefix of the last query word. */
+    private static final float PREFIX_FACTOR = 0.8f;
+    /** Score factor of a term matched one edit away from a query word. */
+    private static final float FUZZY_FACTOR = 0.5f;
+    /** Most dictionary terms a single prefix may expand to. */
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    /** Shortest query word that is matched with a typo. */
+    private static final int MIN_FUZZY_LENGTH = 4;
+
+    private final KeysetPageReader keysetPageReader;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final List<Movie> documents = new ArrayList<>();
+    private final Map<String, Integer> documentIds = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private float[] lengths = new float[64];
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, List<String>> deletions = new HashMap<>();
+    private double totalLength;
+    private int liveCount;
+
+    public MovieSearchIndex(KeysetPageReader keysetPageReader) {
+        this.keysetPageReader = keysetPageReader;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        try (Stream<Movie> movies = keysetPageReader.stream(Movie.class, null, null)) {
+            movies.forEach(this::index);
+            log.info("Indexed {} movies for search in {} ms",
+                    liveCount, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Could not build movie search index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Adds a movie to the index, replacing any earlier version of it.
+     *
+     * @param movie the movie to index
+     */
+    public void index(Movie movie) {
+        Map<String, Float> frequencies = new HashMap<>();
+        float length = addTokens(frequencies, movie.getTitle(), TITLE_WEIGHT)
+                + addTokens(frequencies, movie.getGenre(), GENRE_WEIGHT)
+                + addTokens(frequencies, movie.getLanguage(), LANGUAGE_WEIGHT)
+                + addTokens(frequencies, movie.getDescription(), DESCRIPTION_WEIGHT);
+
+        lock.writeLock().lock();
+        try {
+            Integer previous = documentIds.get(movie.getId());
+            if (previous != null) {
+                if (documents.get(previous).equals(movie)) {
+                    return;
+                }
+                tombstone(previous);
+            }
+
+            int doc = documents.size();
+            documents.add(movie);
+            documentIds.put(movie.getId(), doc);
+            if (doc == lengths.length) {
+                lengths = Arrays.copyOf(lengths, doc * 2);
+            }
+            lengths[doc] = length;
+            totalLength += length;
+            liveCount++;
+
+            frequencies.forEach((term, frequency) -> terms.computeIfAbsent(term, this::newTerm).add(doc, frequency));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a movie from the index.
+     *
+     * @param movieId the ID of the movie to remove
+     */
+    public void remove(String movieId) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = documentIds.remove(movieId);
+            if (doc != null) {
+                tombstone(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the catalog.
+     *
+     * @param query the words to search for; the last word also matches as a
+     *              prefix unless the query ends with a space
+     * @param limit the maximum number of movies to return
+     * @return the best matching movies, best first
+     */
+    public List<Movie> search(String query, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return Collections.emptyList();
+        }
+        boolean prefixLast = !Character.isWhitespace(query.charAt(query.length() - 1));
+
+        lock.readLock().lock();
+        try {
+            if (liveCount == 0) {
+                return Collections.emptyList();
+            }
+            int size = documents.size();
+            float averageLength = (float) (totalLength / liveCount);
+            float[] scores = new float[size];
+            float[] wordScores = new float[size];
+            Matches matched = new Matches();
+            Matches wordMatched = new Matches();
+
+            for (int i = 0; i < words.size(); i++) {
+                String word = words.get(i);
+
+                Postings exact = terms.get(word);
+                if (exact != null) {
+                    score(exact, 1f, averageLength, wordScores, wordMatched);
+                }
+                if (prefixLast && i == words.size() - 1) {
+                    int expansions = 0;
+                    for (Postings postings : terms.subMap(word, false, word + Character.MAX_VALUE, false).values()) {
+                        score(postings, PREFIX_FACTOR, averageLength, wordScores, wordMatched);
+                        if (++expansions == MAX_PREFIX_EXPANSIONS) {
+                            break;
+                        }
+                    }
+                }
+                if (exact == null && word.length() >= MIN_FUZZY_LENGTH) {
+                    for (String term : oneEditAway(word)) {
+                        score(terms.get(term), FUZZY_FACTOR, averageLength, wordScores, wordMatched);
+                    }
+                }
+
+                // A word counts once per movie, through its best matching term
+                for (int j = 0; j < wordMatched.size; j++) {
+                    int doc = wordMatched.documents[j];
+                    if (scores[doc] == 0f) {
+                        matched.add(doc);
+                    }
+                    scores[doc] += wordScores[doc];
+                    wordScores[doc] = 0f;
+                }
+                wordMatched.size = 0;
+            }
+            return top(scores, matched, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the BM25 score of every live document in a posting list, keeping each document's best score.
+     */
+    private void score(Postings postings, float factor, float averageLength, float[] wordScores, Matches matched) {
+        // BM25 idf, kept positive for terms found in most documents
+        float idf = (float) Math.log(1 + (liveCount - postings.size + 0.5) / (postings.size + 0.5));
+        for (int i = 0; i < postings.size; i++) {
+            int doc = postings.documents[i];
+            if (deleted.get(doc)) {
+                continue;
+            }
+            float frequency = postings.frequencies[i];
+            float norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+            float score = factor * idf * frequency * (K1 + 1) / (frequency + norm);
+            if (wordScores[doc] == 0f) {
+                matched.add(doc);
+            }
+            if (score > wordScores[doc]) {
+                wordScores[doc] = score;
+            }
+        }
+    }
+
+    private List<Movie> top(float[] scores, Matches matched, int limit) {
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, (a, b) -> Float.compare(scores[a], scores[b]));
+        for (int i = 0; i < matched.size; i++) {
+            int doc = matched.documents[i];
+            if (best.size() < limit) {
+                best.add(doc);
+            } else if (scores[doc] > scores[best.peek()]) {
+                best.poll();
+                best.add(doc);
+            }
+        }
+        Movie[] result = new Movie[best.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = documents.get(best.poll());
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * Finds the dictionary terms one insertion, deletion, substitution or
+     * adjacent transposition away from a word.
+     */
+    private Set<String> oneEditAway(String word) {
+        Set<String> candidates = new HashSet<>();
+        // The word with one letter deleted is a term, or a deletion of a term
+        for (int i = 0; i < word.length(); i++) {
+            String deletion = word.substring(0, i) + word.substring(i + 1);
+            if (terms.containsKey(deletion)) {
+                candidates.add(deletion);
+            }
+            candidates.addAll(deletions.getOrDefault(deletion, List.of()));
+        }
+        // The word is a term with one letter deleted
+        candidates.addAll(deletions.getOrDefault(word, List.of()));
+
+        candidates.removeIf(term -> term.equals(word) || !withinOneEdit(word, term));
+        return candidates;
+    }
+
+    private Postings newTerm(String term) {
+        if (term.length() >= MIN_FUZZY_LENGTH - 1) {
+            for (int i = 0; i < term.length(); i++) {
+                String deletion = term.substring(0, i) + term.substring(i + 1);
+                List<String> variants = deletions.computeIfAbsent(deletion, key -> new ArrayList<>(1));
+                if (!variants.contains(term)) {
+                    variants.add(term);
+                }
+            }
+        }
+        return new Postings();
+    }
+
+    private void tombstone(int doc) {
+        if (!deleted.get(doc)) {
+            deleted.set(doc);
+            totalLength -= lengths[doc];
+            liveCount--;
+        }
+    }
+
+    private static float addTokens(Map<String, Float> frequencies, String text, float weight) {
+        float length = 0;
+        for (String token : tokenize(text)) {
+            frequencies.merge(token, weight, Float::sum);
+            length += weight;
+        }
+        return length;
+    }
+
+    /**
+     * Splits text into lower-case words without accents.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(folded.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Checks whether two different strings are at most one edit apart, counting
+     * an adjacent transposition as one edit.
+     */
+    private static boolean withinOneEdit(String a, String b) {
+        int lengthDifference = a.length() - b.length();
+        if (Math.abs(lengthDifference) > 1) {
+            return false;
+        }
+        int i = 0;
+        while (i < a.length() && i < b.length() && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        if (lengthDifference > 0) {
+            return a.regionMatches(i + 1, b, i, b.length() - i);
+        }
+        if (lengthDifference < 0) {
+            return b.regionMatches(i + 1, a, i, a.length() - i);
+        }
+        if (a.regionMatches(i + 1, b, i + 1, a.length() - i - 1)) {
+            return true;
+        }
+        return i + 1 < a.length()
+                && a.charAt(i) == b.charAt(i + 1)
+                && a.charAt(i + 1) == b.charAt(i)
+                && a.regionMatches(i + 2, b, i + 2, a.length() - i - 2);
+    }
+
+    /**
+     * Growable list of matched documents.
+     */
+    private static final class Matches {
+
+        private int[] documents = new int[16];
+        private int size;
+
+        void add(int document) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+            }
+            documents[size++] = document;
+        }
+    }
+
+    /**
+     * Documents containing a term, in increasing document order, with the term's weighted frequency.
+     */
+    private static final class Postings {
+
+        private int[] documents = new int[4];
+        private float[] frequencies = new float[4];
+        private int size;
+
+        void add(int document, float frequency) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            documents[size] = document;
+            frequencies[size] = frequency;
+            size++;
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package com.moviebooking.service;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import org.springframework.stereotype.Service;
 
+import com.moviebooking.dto.CursorPage;
 import com.moviebooking.dto.MovieCreateRequest;
+import com.moviebooking.dto.MovieFacetResponse;
+import com.moviebooking.dto.NowShowingResponse;
+import com.moviebooking.exception.BadRequestException;
 import com.moviebooking.exception.ResourceNotFoundException;
 import com.moviebooking.models.Movie;
 import com.moviebooking.repository.MovieRepository;
@@ -16,15 +23,67 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class MovieService {
     
+    private static final int MAX_SEARCH_RESULTS = 50;
+    private static final int MAX_FILTER_RESULTS = 100;
+    private static final int MAX_NOW_SHOWING_DAYS = 31;
+    
     private final MovieRepository movieRepository;
+    private final CatalogCache catalogCache;
+    private final MovieSearchIndex movieSearchIndex;
+    private final MovieFacetIndex movieFacetIndex;
+    private final NowShowingView nowShowingView;
+    
+    public CursorPage<Movie> getMoviePage(String after, int limit, Set<String> fields) {
+        return catalogCache.getMoviePage(after, limit, fields);
+    }
+    
+    public Stream<Movie> streamMovies() {
+        // Served from the cached snapshot; the response writer applies the fieldset
+        return catalogCache.getAllMovies().stream();
+    }
+    
+    public List<Movie> searchMovies(String query, int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_SEARCH_RESULTS);
+        }
+        return movieSearchIndex.search(query, limit);
+    }
+    
+    public MovieFacetResponse filterMovies(Set<String> genres, Set<String> languages,
+                                           Double minRating, Double maxRating,
+                                           LocalDate releasedFrom, LocalDate releasedTo,
+                                           int offset, int limit) {
+        if (limit < 1 || limit > MAX_FILTER_RESULTS) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_FILTER_RESULTS);
+        }
+        if (offset < 0) {
+            throw new BadRequestException("offset must not be negative");
+        }
+        if (minRating != null && maxRating != null && minRating > maxRating) {
+            throw new BadRequestException("minRating must not be greater than maxRating");
+        }
+        if (releasedFrom != null && releasedTo != null && releasedFrom.isAfter(releasedTo)) {
+            throw new BadRequestException("releasedFrom must not be after releasedTo");
+        }
+        return movieFacetIndex.query(genres, languages, minRating, maxRating,
+                releasedFrom == null ? null : releasedFrom.atStartOfDay(),
+                releasedTo == null ? null : releasedTo.plusDays(1).atStartOfDay(),
+                offset, limit);
+    }
     
-    public List<Movie> getAllMovies() {
-        return movieRepository.findAll();
+    public List<NowShowingResponse> getNowShowing(String city, LocalDate from, int days) {
+        if (days < 1 || days > MAX_NOW_SHOWING_DAYS) {
+            throw new BadRequestException("days must be between 1 and " + MAX_NOW_SHOWING_DAYS);
+        }
+        return nowShowingView.query(city, from != null ? from : LocalDate.now(), days);
     }
     
     public Movie getMovie(String id) {
-        return movieRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Movie not found"));
+        Movie movie = catalogCache.getMovie(id);
+        if (movie == null) {
+            throw new ResourceNotFoundException("Movie not found");
+        }
+        return movie;
     }
     
     public Movie createMovie(MovieCreateRequest request) {
@@ -39,7 +98,11 @@ public class MovieService {
                 .releaseDate(request.getReleaseDate())
                 .build();
         
-        return movieRepository.save(movie);
+        Movie saved = movieRepository.save(movie);
+        catalogCache.invalidateMovie(saved.getId());
+        movieSearchIndex.index(saved);
+        movieFacetIndex.index(saved);
+        return saved;
     }
 }
 
@@ -0,0 +1,298 @@
+package com.moviebooking.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+
+import com.moviebooking.dto.NowShowingResponse;
+import com.moviebooking.models.Movie;
+import com.moviebooking.models.Showtime;
+import com.moviebooking.models.Theatre;
+import com.moviebooking.repository.KeysetPageReader;
+import com.moviebooking.repository.TheatreRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory read model of the movies showing per day and city.
+ *
+ * <p>Every future showtime is filed under its show date, the city of its
+ * theatre (the theatre's location) and its movie, so one lookup answers what
+ * is on in a city over the next days, with each movie's first showtime and
+ * lowest price. The model is loaded at startup and kept current
+ * incrementally: {@link ShowtimeService#createShowtime} adds new showtimes,
+ * showtimes created on other nodes arrive through
+ * {@link CatalogChangeListener}, and a sweeper drops showtimes once they
+ * start, every {@code booking.now-showing.sweep-interval}.</p>
+ *
+ * <p>Movie details come from the {@link CatalogCache}, so reads are served
+ * from memory. All model state is guarded by the view's monitor; writes are
+ * rare and each touches one small group.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+@Slf4j
+public class NowShowingView implements ApplicationRunner {
+
+    private static final Set<String> SHOW_FIELDS = Set.of("movieId", "theatreId", "showDate", "price");
+    private static final Comparator<Show> SHOW_ORDER = Comparator.comparing(Show::showDate).thenComparing(Show::id);
+
+    private final KeysetPageReader keysetPageReader;
+    private final TheatreRepository theatreRepository;
+    private final CatalogCache catalogCache;
+    private final Duration sweepInterval;
+
+    private final Map<String, String> cities = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "now-showing-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this
+    private final Map<String, Show> shows = new HashMap<>();
+    private final TreeMap<LocalDate, Map<String, Map<String, TreeSet<Show>>>> days = new TreeMap<>();
+    private final PriorityQueue<Show> byStart = new PriorityQueue<>(SHOW_ORDER);
+
+    public NowShowingView(
+            KeysetPageReader keysetPageReader,
+            TheatreRepository theatreRepository,
+            CatalogCache catalogCache,
+            @Value("${booking.now-showing.sweep-interval:1m}") Duration sweepInterval) {
+        this.keysetPageReader = keysetPageReader;
+        this.theatreRepository = theatreRepository;
+        this.catalogCache = catalogCache;
+        this.sweepInterval = sweepInterval;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        try (Stream<Theatre> theatres = keysetPageReader.stream(Theatre.class, null, Set.of("location"));
+             Stream<Showtime> showtimes = keysetPageReader.stream(Showtime.class,
+                     Criteria.where("showDate").gt(LocalDateTime.now()), SHOW_FIELDS)) {
+            theatres.forEach(theatre -> cities.put(theatre.getId(), city(theatre)));
+            showtimes.forEach(this::add);
+            log.info("Loaded {} upcoming showtimes into the now-showing view in {} ms",
+                    size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Could not load the now-showing view: {}", e.getMessage());
+        }
+        sweeper.scheduleWithFixedDelay(this::sweep,
+                sweepInterval.toMillis(), sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopSweeper() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Adds a showtime of a known theatre.
+     *
+     * @param showtime the showtime to add
+     * @param theatre its theatre
+     */
+    public void add(Showtime showtime, Theatre theatre) {
+        cities.put(theatre.getId(), city(theatre));
+        add(showtime);
+    }
+
+    /**
+     * Adds a showtime, replacing any earlier version of it. Showtimes that
+     * have already started are ignored.
+     *
+     * @param showtime the showtime to add
+     */
+    public void add(Showtime showtime) {
+        if (showtime.getShowDate() == null || !showtime.getShowDate().isAfter(LocalDateTime.now())) {
+            return;
+        }
+        String city = cities.computeIfAbsent(showtime.getTheatreId(), theatreId ->
+                theatreRepository.findById(theatreId).map(NowShowingView::city).orElse(null));
+        if (city == null) {
+            return;
+        }
+        Show show = new Show(showtime.getId(), showtime.getMovieId(), city,
+                showtime.getShowDate(), showtime.getPrice());
+        synchronized (this) {
+            Show previous = shows.put(show.id(), show);
+            if (previous != null) {
+                unfile(previous);
+                byStart.remove(previous);
+            }
+            days.computeIfAbsent(show.showDate().toLocalDate(), date -> new HashMap<>())
+                    .computeIfAbsent(cityKey(city), key -> new HashMap<>())
+                    .computeIfAbsent(show.movieId(), movieId -> new TreeSet<>(SHOW_ORDER))
+                    .add(show);
+            byStart.add(show);
+        }
+    }
+
+    /**
+     * Gets the movies showing over a range of days.
+     *
+     * @param city the city to look in, matched case-insensitively, or null for every city
+     * @param from the first day
+     * @param dayCount the number of days
+     * @return one entry per day and city with showtimes left, by day then city
+     */
+    public List<NowShowingResponse> query(String city, LocalDate from, int dayCount) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Day> found = new ArrayList<>();
+        synchronized (this) {
+            NavigableMap<LocalDate, Map<String, Map<String, TreeSet<Show>>>> range =
+                    days.subMap(from, true, from.plusDays(dayCount), false);
+            for (Map.Entry<LocalDate, Map<String, Map<String, TreeSet<Show>>>> day : range.entrySet()) {
+                if (city != null) {
+                    Map<String, TreeSet<Show>> movies = day.getValue().get(cityKey(city));
+                    if (movies != null) {
+                        summarize(found, day.getKey(), movies, now);
+                    }
+                } else {
+                    day.getValue().values().forEach(movies -> summarize(found, day.getKey(), movies, now));
+                }
+            }
+        }
+
+        // Movie details are looked up outside the lock, since the cache may have to load them
+        List<NowShowingResponse> result = new ArrayList<>(found.size());
+        for (Day day : found) {
+            List<NowShowingResponse.NowShowingMovie> movies = new ArrayList<>(day.movies().size());
+            for (MovieShows shows : day.movies()) {
+                Movie movie = catalogCache.getMovie(shows.movieId());
+                if (movie != null) {
+                    movies.add(NowShowingResponse.NowShowingMovie.builder()
+                            .movie(movie)
+                            .firstShowtimeId(shows.first().id())
+                            .firstShowDate(shows.first().showDate())
+                            .minPrice(shows.minPrice())
+                            .showtimes(shows.count())
+                            .build());
+                }
+            }
+            if (!movies.isEmpty()) {
+                result.add(NowShowingResponse.builder()
+                        .date(day.date())
+                        .city(day.city())
+                        .movies(movies)
+                        .build());
+            }
+        }
+        result.sort(Comparator.comparing(NowShowingResponse::getDate)
+                .thenComparing(NowShowingResponse::getCity, String.CASE_INSENSITIVE_ORDER));
+        return result;
+    }
+
+    private static void summarize(List<Day> found, LocalDate date, Map<String, TreeSet<Show>> movies,
+                                  LocalDateTime now) {
+        List<MovieShows> summaries = new ArrayList<>(movies.size());
+        for (Map.Entry<String, TreeSet<Show>> movie : movies.entrySet()) {
+            Show first = null;
+            int count = 0;
+            Double minPrice = null;
+            for (Show show : movie.getValue()) {
+                // Shows that started since the last sweep are skipped here
+                if (!show.showDate().isAfter(now)) {
+                    continue;
+                }
+                if (first == null) {
+                    first = show;
+                }
+                count++;
+                if (show.price() != null && (minPrice == null || show.price() < minPrice)) {
+                    minPrice = show.price();
+                }
+            }
+            if (first != null) {
+                summaries.add(new MovieShows(movie.getKey(), first, minPrice, count));
+            }
+        }
+        if (!summaries.isEmpty()) {
+            summaries.sort(Comparator.comparing(MovieShows::first, SHOW_ORDER));
+            found.add(new Day(date, summaries.get(0).first().city(), summaries));
+        }
+    }
+
+    private synchronized void sweep() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int removed = 0;
+            while (!byStart.isEmpty() && !byStart.peek().showDate().isAfter(now)) {
+                Show show = byStart.poll();
+                shows.remove(show.id());
+                unfile(show);
+                removed++;
+            }
+            if (removed > 0) {
+                log.debug("Removed {} started showtimes from the now-showing view", removed);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to sweep the now-showing view", e);
+        }
+    }
+
+    private void unfile(Show show) {
+        LocalDate date = show.showDate().toLocalDate();
+        Map<String, Map<String, TreeSet<Show>>> day = days.get(date);
+        Map<String, TreeSet<Show>> movies = day.get(cityKey(show.city()));
+        TreeSet<Show> group = movies.get(show.movieId());
+        group.remove(show);
+        if (group.isEmpty()) {
+            movies.remove(show.movieId());
+            if (movies.isEmpty()) {
+                day.remove(cityKey(show.city()));
+                if (day.isEmpty()) {
+                    days.remove(date);
+                }
+            }
+        }
+    }
+
+    private synchronized int size() {
+        return shows.size();
+    }
+
+    private static String city(Theatre theatre) {
+        return theatre.getLocation() == null ? "" : theatre.getLocation().trim();
+    }
+
+    private static String cityKey(String city) {
+        return city.toLowerCase(Locale.ROOT);
+    }
+
+    private record Show(String id, String movieId, String city, LocalDateTime showDate, Double price) {
+    }
+
+    private record MovieShows(String movieId, Show first, Double minPrice, int count) {
+    }
+
+    private record Day(LocalDate date, String city, List<MovieShows> movies) {
+    }
+}
@@ -0,0 +1,223 @@
+package com.moviebooking.service;
+
+import java.util.BitSet;
+
+import org.springframework.stereotype.Component;
+
+import com.moviebooking.models.SeatInventory;
+import com.moviebooking.models.SeatLayoutTemplate;
+
+/**
+ * Best-available seat allocation engine.
+ *
+ * <p>Finds the contiguous block of free seats closest to the centre of the
+ * auditorium. Each row is turned into a free-seat bitmap (not booked, not
+ * held and not a gap in the layout). The start positions of all free runs of the requested length are
+ * then found with a handful of shift-and steps over the row's words: after
+ * {@code r &= r >>> s} a set bit means the run starting there is free for
+ * {@code s} more seats, and doubling {@code s} reaches length {@code n} in
+ * {@code O(log n)} steps. Blocks may not span an aisle, so the run starts
+ * are masked with the starts that are aisle-free for {@code n - 1} seats,
+ * which are the same for every row and computed once.</p>
+ *
+ * <p>Blocks are scored by the squared distance between the block's centre
+ * and the centre of the auditorium, measured in seats, with rows weighted
+ * the same as seats. The lowest score wins; ties go to the front-most row.</p>
+ *
+ * <p>The allocator only reads the bitmaps it is given, so it is safe to use
+ * from any thread.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class SeatAllocator {
+
+    /**
+     * Finds the best free block of adjacent seats in one row.
+     *
+     * @param layout the theatre's seat layout
+     * @param inventory the showtime's seat inventory
+     * @param held seat indexes currently held, treated as taken
+     * @param count the number of adjacent seats wanted
+     * @return the seat indexes of the block, left to right, or null if no row has such a block
+     */
+    public int[] allocate(SeatLayoutTemplate layout, SeatInventory inventory, BitSet held, int count) {
+        int rows = inventory.getRows();
+        int seatsPerRow = inventory.getSeatsPerRow();
+        if (count < 1 || count > seatsPerRow) {
+            return null;
+        }
+
+        long[] booked = inventory.getBooked();
+        long[] heldWords = held.toLongArray();
+        long[] gaps = layout.getGaps();
+        int rowWords = SeatInventory.wordCount(seatsPerRow);
+        long[] free = new long[rowWords];
+        long[] scratch = new long[rowWords];
+        int tail = seatsPerRow & 63;
+
+        // Starts whose next count - 1 seats are not followed by an aisle
+        long[] aisleFree = new long[rowWords];
+        long[] aisleBreaks = layout.getAisleBreaks();
+        for (int w = 0; w < rowWords; w++) {
+            aisleFree[w] = count > 1 ? ~aisleBreaks[w] : -1L;
+        }
+        if (tail != 0) {
+            aisleFree[rowWords - 1] &= (1L << tail) - 1;
+        }
+        runStarts(aisleFree, scratch, count - 1);
+
+        // Doubled so the centre of an even-length block stays integral
+        int centreRow2 = rows - 1;
+        int centreSeat2 = seatsPerRow - 1;
+
+        long bestScore = Long.MAX_VALUE;
+        int bestRow = -1;
+        int bestStart = -1;
+        for (int row = 0; row < rows; row++) {
+            long rowDistance = 2L * row - centreRow2;
+            long rowScore = rowDistance * rowDistance;
+            if (rowScore >= bestScore) {
+                continue;
+            }
+
+            int rowOffset = row * seatsPerRow;
+            for (int w = 0; w < rowWords; w++) {
+                int offset = rowOffset + (w << 6);
+                free[w] = ~(extract(booked, offset) | extract(heldWords, offset) | extract(gaps, offset));
+            }
+            if (tail != 0) {
+                free[rowWords - 1] &= (1L << tail) - 1;
+            }
+
+            runStarts(free, scratch, count);
+            for (int w = 0; w < rowWords; w++) {
+                free[w] &= aisleFree[w];
+            }
+
+            // The ideal start puts the block's centre on the row's centre; only the
+            // nearest free start on either side of it can be the best in this row
+            int idealStart = (centreSeat2 - (count - 1)) / 2;
+            int[] candidates = {previousSetBit(free, idealStart), nextSetBit(free, idealStart + 1)};
+            for (int start : candidates) {
+                if (start < 0) {
+                    continue;
+                }
+                long seatDistance = 2L * start + (count - 1) - centreSeat2;
+                long score = rowScore + seatDistance * seatDistance;
+                if (score < bestScore) {
+                    bestScore = score;
+                    bestRow = row;
+                    bestStart = start;
+                }
+            }
+        }
+
+        if (bestRow < 0) {
+            return null;
+        }
+        int[] seatIndexes = new int[count];
+        for (int i = 0; i < count; i++) {
+            seatIndexes[i] = bestRow * seatsPerRow + bestStart + i;
+        }
+        return seatIndexes;
+    }
+
+    /**
+     * Reduces a free-seat bitmap in place to the start positions of free runs of the given length.
+     */
+    private static void runStarts(long[] free, long[] scratch, int length) {
+        int covered = 1;
+        while (covered < length) {
+            int shift = Math.min(covered, length - covered);
+            shiftRight(free, scratch, shift);
+            boolean any = false;
+            for (int w = 0; w < free.length; w++) {
+                free[w] &= scratch[w];
+                any |= free[w] != 0;
+            }
+            if (!any) {
+                return;
+            }
+            covered += shift;
+        }
+    }
+
+    /**
+     * Logical right shift of a multiword bitmap, where bit {@code i} moves to bit {@code i - shift}.
+     */
+    private static void shiftRight(long[] source, long[] target, int shift) {
+        int wordShift = shift >>> 6;
+        int bitShift = shift & 63;
+        for (int w = 0; w < source.length; w++) {
+            int from = w + wordShift;
+            long low = from < source.length ? source[from] : 0L;
+            if (bitShift == 0) {
+                target[w] = low;
+            } else {
+                long high = from + 1 < source.length ? source[from + 1] : 0L;
+                target[w] = (low >>> bitShift) | (high << (64 - bitShift));
+            }
+        }
+    }
+
+    /**
+     * Reads 64 bits of a bitmap starting at an arbitrary bit offset; bits past the end read as zero.
+     */
+    private static long extract(long[] words, int offset) {
+        int word = offset >>> 6;
+        int bit = offset & 63;
+        long low = word < words.length ? words[word] : 0L;
+        if (bit == 0) {
+            return low;
+        }
+        long high = word + 1 < words.length ? words[word + 1] : 0L;
+        return (low >>> bit) | (high << (64 - bit));
+    }
+
+    /**
+     * Finds the first set bit at or after a position, or -1 if there is none.
+     */
+    private static int nextSetBit(long[] words, int from) {
+        int w = from >>> 6;
+        if (w >= words.length) {
+            return -1;
+        }
+        long word = words[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == words.length) {
+                return -1;
+            }
+            word = words[w];
+        }
+    }
+
+    /**
+     * Finds the last set bit at or before a position, or -1 if there is none.
+     */
+    private static int previousSetBit(long[] words, int from) {
+        if (from < 0) {
+            return -1;
+        }
+        int w = from >>> 6;
+        if (w >= words.length) {
+            w = words.length - 1;
+            from = (words.length << 6) - 1;
+        }
+        long word = words[w] & (-1L >>> (63 - (from & 63)));
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+            }
+            if (w-- == 0) {
+                return -1;
+            }
+            word = words[w];
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.moviebooking.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.moviebooking.dto.SeatHoldRequest;
+import com.moviebooking.dto.SeatHoldResponse;
+import com.moviebooking.enums.SeatStatus;
+import com.moviebooking.exception.BadRequestException;
+import com.moviebooking.exception.ResourceNotFoundException;
+import com.moviebooking.models.Seat;
+import com.moviebooking.models.SeatHold;
+import com.moviebooking.models.SeatInventory;
+import com.moviebooking.models.SeatLayoutTemplate;
+import com.moviebooking.models.Showtime;
+import com.moviebooking.repository.ShowtimeRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service class for temporary seat holds.
+ *
+ * <p>A hold reserves seats for one user for a configurable time
+ * ({@code booking.hold.ttl}). While a hold is active the seats are reported
+ * as {@link SeatStatus#SELECTED} and other users cannot book them.</p>
+ *
+ * <p>Seats are claimed lock-free: each showtime has a concurrent map from
+ * seat index to the hold that owns it, and a seat is taken with a single
+ * {@code putIfAbsent}/{@code replace}. A showtime's map is dropped once its
+ * last hold is gone, so showtimes without holds cost nothing. Expiry is
+ * driven by one {@link DelayQueue} drained by a single background thread,
+ * instead of a timer per hold.</p>
+ *
+ * <p>Holds are single-node: they are kept in memory on the node that
+ * created them, and are neither claimed in nor visible through MongoDB. With
+ * several nodes, users served by different nodes can hold, or be
+ * auto-allocated, the same seats. Double booking is still impossible,
+ * because bookings claim their seats in MongoDB, but the user who books
+ * second is rejected even though their hold looked valid. Deployments that
+ * rely on holds should route each showtime to a single node.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SeatHoldService {
+
+    private static final int MAX_ALLOCATION_ATTEMPTS = 3;
+
+    private final ShowtimeRepository showtimeRepository;
+    private final SeatInventoryService seatInventoryService;
+    private final SeatAllocator seatAllocator;
+    private final SeatMapBroadcaster seatMapBroadcaster;
+
+    /**
+     * How long a hold lasts before its seats are released automatically.
+     */
+    @Value("${booking.hold.ttl:5m}")
+    private Duration holdTtl;
+
+    private final Map<String, Map<Integer, SeatHold>> seatHolds = new ConcurrentHashMap<>();
+    private final Map<String, SeatHold> holdsById = new ConcurrentHashMap<>();
+    private final DelayQueue<HoldExpiry> expiryQueue = new DelayQueue<>();
+    private Thread expiryThread;
+
+    @PostConstruct
+    void startExpiryThread() {
+        expiryThread = new Thread(this::expireHolds, "seat-hold-expiry");
+        expiryThread.setDaemon(true);
+        expiryThread.start();
+    }
+
+    @PreDestroy
+    void stopExpiryThread() {
+        expiryThread.interrupt();
+    }
+
+    /**
+     * Holds seats for a user.
+     *
+     * @param showtimeId the showtime to hold seats for
+     * @param request the seats to hold
+     * @param userId the ID of the user holding the seats
+     * @return the created hold
+     * @throws ResourceNotFoundException if the showtime is not found
+     * @throws BadRequestException if a seat is invalid, booked, or held by another user
+     */
+    public SeatHoldResponse createHold(String showtimeId, SeatHoldRequest request, String userId) {
+        log.info("Holding {} seats for user: {} and showtime: {}", request.getSeats().size(), userId, showtimeId);
+
+        Showtime showtime = showtimeRepository.findById(showtimeId)
+                .orElseThrow(() -> new ResourceNotFoundException("Showtime not found"));
+
+        SeatInventory inventory = seatInventoryService.getInventory(showtime);
+        int[] seatIndexes = seatInventoryService.resolve(seatInventoryService.getLayout(showtime), request.getSeats());
+        for (int i = 0; i < seatIndexes.length; i++) {
+            if (inventory.isBooked(seatIndexes[i])) {
+                throw new BadRequestException("Seat " + request.getSeats().get(i).getSeatIdentifier() + " is already booked");
+            }
+        }
+
+        return placeHold(showtimeId, userId, request.getSeats(), seatIndexes);
+    }
+
+    /**
+     * Holds the best available block of adjacent seats for a user.
+     *
+     * <p>The block is chosen by {@link SeatAllocator}. If another user takes
+     * one of its seats before the hold is placed, a new block is chosen. Only
+     * holds on this node are seen, see the class documentation.</p>
+     *
+     * @param showtimeId the showtime to hold seats for
+     * @param count the number of adjacent seats wanted
+     * @param userId the ID of the user holding the seats
+     * @return the created hold
+     * @throws ResourceNotFoundException if the showtime is not found
+     * @throws BadRequestException if no block of that many adjacent seats is available
+     */
+    public SeatHoldResponse autoAllocate(String showtimeId, int count, String userId) {
+        log.info("Allocating {} adjacent seats for user: {} and showtime: {}", count, userId, showtimeId);
+
+        Showtime showtime = showtimeRepository.findById(showtimeId)
+                .orElseThrow(() -> new ResourceNotFoundException("Showtime not found"));
+        SeatInventory inventory = seatInventoryService.getInventory(showtime);
+        SeatLayoutTemplate layout = seatInventoryService.getLayout(showtime);
+        if (count < 1 || count > inventory.getSeatsPerRow()) {
+            throw new BadRequestException("Seat count must be between 1 and " + inventory.getSeatsPerRow());
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            int[] seatIndexes = seatAllocator.allocate(layout, inventory, getHeldSeats(showtimeId), count);
+            if (seatIndexes == null) {
+                throw new BadRequestException("No block of " + count + " adjacent seats is available");
+            }
+            List<Seat> seats = new ArrayList<>(count);
+            for (int seatIndex : seatIndexes) {
+                Seat seat = layout.seatAt(seatIndex, SeatStatus.AVAILABLE);
+                seats.add(Seat.builder()
+                        .row(seat.getRow())
+                        .number(seat.getNumber())
+                        .build());
+            }
+            try {
+                return placeHold(showtimeId, userId, seats, seatIndexes);
+            } catch (BadRequestException e) {
+                if (attempt == MAX_ALLOCATION_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Claims the seats for a new hold, in this node's memory only, and schedules its expiry.
+     *
+     * @throws BadRequestException if a seat is held by another user
+     */
+    private SeatHoldResponse placeHold(String showtimeId, String userId, List<Seat> requestedSeats, int[] seatIndexes) {
+        List<Seat> seats = requestedSeats.stream()
+                .map(seat -> Seat.builder()
+                        .row(seat.getRow())
+                        .number(seat.getNumber())
+                        .status(SeatStatus.SELECTED)
+                        .build())
+                .toList();
+        SeatHold hold = SeatHold.builder()
+                .id(UUID.randomUUID().toString())
+                .showtimeId(showtimeId)
+                .userId(userId)
+                .seats(seats)
+                .seatIndexes(seatIndexes)
+                .expiresAt(LocalDateTime.now().plus(holdTtl))
+                .build();
+
+        while (true) {
+            Map<Integer, SeatHold> holds = seatHolds.computeIfAbsent(showtimeId, key -> new ConcurrentHashMap<>());
+            for (int i = 0; i < seatIndexes.length; i++) {
+                if (!tryAcquire(holds, seatIndexes[i], hold)) {
+                    release(showtimeId, holds, Arrays.copyOf(seatIndexes, i), hold);
+                    throw new BadRequestException(
+                            "Seat " + seats.get(i).getSeatIdentifier() + " is held by another customer");
+                }
+            }
+            if (seatHolds.get(showtimeId) == holds) {
+                break;
+            }
+            // The map was dropped as empty before the seats went in; claim them again in its replacement
+            release(showtimeId, holds, seatIndexes, hold);
+        }
+
+        holdsById.put(hold.getId(), hold);
+        expiryQueue.add(new HoldExpiry(hold, System.nanoTime() + holdTtl.toNanos()));
+        seatMapBroadcaster.publish(showtimeId, seatIndexes, SeatStatus.SELECTED);
+
+        log.info("Created hold: {} expiring at {}", hold.getId(), hold.getExpiresAt());
+        return SeatHoldResponse.builder()
+                .holdId(hold.getId())
+                .showtimeId(showtimeId)
+                .seats(seats)
+                .expiresAt(hold.getExpiresAt())
+                .build();
+    }
+
+    /**
+     * Releases a hold before it expires.
+     *
+     * @param showtimeId the showtime the hold belongs to
+     * @param holdId the ID of the hold to release
+     * @param userId the ID of the user requesting the release
+     * @throws ResourceNotFoundException if the hold is not found
+     * @throws BadRequestException if the hold belongs to another user
+     */
+    public void releaseHold(String showtimeId, String holdId, String userId) {
+        SeatHold hold = holdsById.get(holdId);
+        if (hold == null || !hold.getShowtimeId().equals(showtimeId)) {
+            throw new ResourceNotFoundException("Hold not found");
+        }
+        if (!hold.getUserId().equals(userId)) {
+            throw new BadRequestException("You can only release your own holds");
+        }
+        expire(hold);
+        log.info("Released hold: {}", holdId);
+    }
+
+    /**
+     * Verifies that none of the seats is held by a different user.
+     *
+     * @param showtimeId the showtime being booked
+     * @param seatIndexes the seat bit indexes being booked
+     * @param seats the seats being booked, matching {@code seatIndexes}
+     * @param userId the ID of the user booking the seats
+     * @throws BadRequestException if a seat is held by another user
+     */
+    public void checkNotHeldByOthers(String showtimeId, int[] seatIndexes, List<Seat> seats, String userId) {
+        Map<Integer, SeatHold> holds = seatHolds.get(showtimeId);
+        if (holds == null) {
+            return;
+        }
+        for (int i = 0; i < seatIndexes.length; i++) {
+            SeatHold hold = holds.get(seatIndexes[i]);
+            if (hold != null && !hold.isExpired() && !hold.getUserId().equals(userId)) {
+                throw new BadRequestException("Seat " + seats.get(i).getSeatIdentifier() + " is held by another customer");
+            }
+        }
+    }
+
+    /**
+     * Drops the user's holds on seats that have just been booked.
+     *
+     * @param showtimeId the showtime that was booked
+     * @param seatIndexes the seat bit indexes that were booked
+     * @param userId the ID of the user who booked the seats
+     */
+    public void releaseSeats(String showtimeId, int[] seatIndexes, String userId) {
+        Map<Integer, SeatHold> holds = seatHolds.get(showtimeId);
+        if (holds == null) {
+            return;
+        }
+        // No change event here; the booking that consumed the hold publishes the seats as booked
+        for (int seatIndex : seatIndexes) {
+            SeatHold hold = holds.get(seatIndex);
+            if (hold != null && hold.getUserId().equals(userId)) {
+                holds.remove(seatIndex, hold);
+            }
+        }
+        removeIfEmpty(showtimeId);
+    }
+
+    /**
+     * Gets the seats currently held for a showtime.
+     *
+     * @param showtimeId the showtime to inspect
+     * @return a bitmap of held seat indexes
+     */
+    public BitSet getHeldSeats(String showtimeId) {
+        BitSet held = new BitSet();
+        Map<Integer, SeatHold> holds = seatHolds.get(showtimeId);
+        if (holds != null) {
+            holds.forEach((seatIndex, hold) -> {
+                if (!hold.isExpired()) {
+                    held.set(seatIndex);
+                }
+            });
+        }
+        return held;
+    }
+
+    /**
+     * Takes a seat for a hold unless another user holds it and that hold is still active.
+     */
+    private boolean tryAcquire(Map<Integer, SeatHold> holds, int seatIndex, SeatHold hold) {
+        SeatHold current = holds.putIfAbsent(seatIndex, hold);
+        while (current != null) {
+            if (!current.isExpired() && !current.getUserId().equals(hold.getUserId())) {
+                return false;
+            }
+            if (holds.replace(seatIndex, current, hold)) {
+                return true;
+            }
+            current = holds.putIfAbsent(seatIndex, hold);
+        }
+        return true;
+    }
+
+    private void expire(SeatHold hold) {
+        holdsById.remove(hold.getId(), hold);
+        Map<Integer, SeatHold> holds = seatHolds.get(hold.getShowtimeId());
+        if (holds != null) {
+            int[] released = Arrays.stream(hold.getSeatIndexes())
+                    .filter(seatIndex -> holds.remove(seatIndex, hold))
+                    .toArray();
+            removeIfEmpty(hold.getShowtimeId());
+            if (released.length > 0) {
+                seatMapBroadcaster.publish(hold.getShowtimeId(), released, SeatStatus.AVAILABLE);
+            }
+        }
+    }
+
+    /**
+     * Gives back seats a hold claimed in a showtime's map.
+     */
+    private void release(String showtimeId, Map<Integer, SeatHold> holds, int[] seatIndexes, SeatHold hold) {
+        for (int seatIndex : seatIndexes) {
+            holds.remove(seatIndex, hold);
+        }
+        removeIfEmpty(showtimeId);
+    }
+
+    /**
+     * Drops a showtime's map once it holds no seats. Claims check afterwards
+     * that their map is still registered, so none is lost in a dropped map.
+     */
+    private void removeIfEmpty(String showtimeId) {
+        seatHolds.computeIfPresent(showtimeId, (id, holds) -> holds.isEmpty() ? null : holds);
+    }
+
+    private void expireHolds() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                expire(expiryQueue.take().hold());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Failed to expire seat hold", e);
+            }
+        }
+    }
+
+    /**
+     * Delay queue entry that becomes available when its hold expires.
+     */
+    private record HoldExpiry(SeatHold hold, long deadlineNanos) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.moviebooking.service;
+
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+
+import com.moviebooking.exception.BadRequestException;
+import com.moviebooking.exception.ResourceNotFoundException;
+import com.moviebooking.models.Seat;
+import com.moviebooking.models.SeatInventory;
+import com.moviebooking.models.SeatLayoutTemplate;
+import com.moviebooking.models.Showtime;
+import com.moviebooking.repository.BookingRepository;
+import com.moviebooking.repository.ShowtimeRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service class for managing the per-showtime seat inventory bitmap.
+ *
+ * <p>Showtimes created before the inventory existed are backfilled lazily
+ * the first time they are used, by replaying their confirmed bookings.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SeatInventoryService {
+
+    private final ShowtimeRepository showtimeRepository;
+    private final SeatLayoutRegistry seatLayoutRegistry;
+    private final BookingRepository bookingRepository;
+
+    /**
+     * Gets the seat inventory of a showtime, building it if it does not exist yet.
+     *
+     * @param showtime the showtime whose inventory to load
+     * @return the seat inventory attached to the showtime
+     * @throws ResourceNotFoundException if the showtime's theatre is not found
+     */
+    public SeatInventory getInventory(Showtime showtime) {
+        if (showtime.getSeatInventory() != null) {
+            return showtime.getSeatInventory();
+        }
+
+        log.info("Building seat inventory for showtime: {}", showtime.getId());
+
+        SeatLayoutTemplate layout = seatLayoutRegistry.getTemplate(showtime.getTheatreId());
+        SeatInventory inventory = SeatInventory.builder()
+                .rows(layout.getRows())
+                .seatsPerRow(layout.getSeatsPerRow())
+                .booked(new long[SeatInventory.wordCount(layout.getRows() * layout.getSeatsPerRow())])
+                .build();
+        for (Seat seat : bookingRepository.findConfirmedSeats(showtime.getId())) {
+            int index = layout.indexOf(seat);
+            if (index >= 0) {
+                inventory.book(index);
+            }
+        }
+
+        int availableSeats = layout.getSeatCount() - inventory.bookedCount();
+        if (!showtimeRepository.initializeSeatInventory(showtime.getId(), inventory, availableSeats)) {
+            // Another request initialized it first; use the stored inventory
+            Showtime stored = showtimeRepository.findById(showtime.getId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Showtime not found"));
+            inventory = stored.getSeatInventory();
+            showtime.setAvailableSeats(stored.getAvailableSeats());
+        } else {
+            showtime.setAvailableSeats(availableSeats);
+        }
+        showtime.setSeatInventory(inventory);
+        return inventory;
+    }
+
+    /**
+     * Gets the seat layout of a showtime's theatre.
+     *
+     * @param showtime the showtime
+     * @return the compiled layout
+     * @throws ResourceNotFoundException if the showtime's theatre is not found
+     */
+    public SeatLayoutTemplate getLayout(Showtime showtime) {
+        return seatLayoutRegistry.getTemplate(showtime.getTheatreId());
+    }
+
+    /**
+     * Resolves the requested seats to bit indexes in the inventory.
+     *
+     * @param layout the layout to resolve against
+     * @param seats the requested seats
+     * @return the bit index of each seat, in request order
+     * @throws BadRequestException if a seat does not exist or is requested twice
+     */
+    public int[] resolve(SeatLayoutTemplate layout, List<Seat> seats) {
+        int[] indexes = new int[seats.size()];
+        long[] seen = new long[SeatInventory.wordCount(layout.getRows() * layout.getSeatsPerRow())];
+        for (int i = 0; i < seats.size(); i++) {
+            Seat seat = seats.get(i);
+            int index = layout.indexOf(seat);
+            if (index < 0) {
+                throw new BadRequestException("Seat " + seat.getSeatIdentifier() + " does not exist");
+            }
+            long bit = 1L << index;
+            if ((seen[index >>> 6] & bit) != 0) {
+                throw new BadRequestException("Seat " + seat.getSeatIdentifier() + " is requested more than once");
+            }
+            seen[index >>> 6] |= bit;
+            indexes[i] = index;
+        }
+        return indexes;
+    }
+}
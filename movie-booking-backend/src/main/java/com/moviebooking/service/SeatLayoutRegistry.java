@@ -0,0 +1,75 @@
+package com.moviebooking.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Service;
+
+import com.moviebooking.exception.ResourceNotFoundException;
+import com.moviebooking.models.SeatLayoutTemplate;
+import com.moviebooking.models.Theatre;
+import com.moviebooking.repository.TheatreRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the compiled {@link SeatLayoutTemplate} of every theatre in use.
+ *
+ * <p>Templates are compiled when a theatre is created, or the first time a
+ * showtime of an older theatre needs one, and are then shared by all of the
+ * theatre's showtimes. Theatres cannot be edited, so a template never goes
+ * stale.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SeatLayoutRegistry {
+
+    private final TheatreRepository theatreRepository;
+
+    private final Map<String, SeatLayoutTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the layout of a theatre, loading and compiling it on first use.
+     *
+     * @param theatreId the theatre ID
+     * @return the compiled layout
+     * @throws ResourceNotFoundException if the theatre is not found
+     */
+    public SeatLayoutTemplate getTemplate(String theatreId) {
+        SeatLayoutTemplate template = templates.get(theatreId);
+        if (template != null) {
+            return template;
+        }
+        Theatre theatre = theatreRepository.findById(theatreId)
+                .orElseThrow(() -> new ResourceNotFoundException("Theatre not found"));
+        return getTemplate(theatre);
+    }
+
+    /**
+     * Gets the layout of a theatre that has already been loaded.
+     *
+     * @param theatre the theatre
+     * @return the compiled layout
+     */
+    public SeatLayoutTemplate getTemplate(Theatre theatre) {
+        return templates.computeIfAbsent(theatre.getId(), key -> {
+            log.info("Compiling seat layout for theatre: {}", key);
+            return SeatLayoutTemplate.compile(theatre);
+        });
+    }
+
+    /**
+     * Registers the layout of a newly created theatre.
+     *
+     * @param template the compiled layout, with the theatre's ID
+     */
+    public void register(SeatLayoutTemplate template) {
+        templates.put(template.getTheatreId(), template);
+    }
+}
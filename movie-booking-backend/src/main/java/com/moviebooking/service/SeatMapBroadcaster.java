@@ -0,0 +1,395 @@
+package com.moviebooking.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.moviebooking.dto.SeatMapDelta;
+import com.moviebooking.dto.SeatsResponse;
+import com.moviebooking.enums.SeatStatus;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fans seat map changes out to Server-Sent Events subscribers.
+ *
+ * <p>Publishers only bump the showtime's {@link SeatMapVersions version} and
+ * append to a lock-free inbox, so bookings never wait on slow clients. A
+ * single dispatcher thread drains the inbox every
+ * {@code booking.seat-map.stream.flush-interval}, merges the changes of each
+ * showtime into one {@code delta} event and serializes it once. It never
+ * writes to a client itself: each subscriber has an outbox of at most
+ * {@code booking.seat-map.stream.buffer-size} events, drained by a small pool
+ * of {@code booking.seat-map.stream.writer-threads} writer threads, one
+ * subscriber at a time. A client too slow to keep up overflows its outbox
+ * and is disconnected; its EventSource reconnects and starts again from a
+ * fresh snapshot. A stalled write holds up only its own subscriber, and one
+ * writer thread until the container's write timeout.</p>
+ *
+ * <p>A new subscriber first receives a {@code snapshot} event, then every
+ * recent delta newer than the snapshot. Only the dispatcher touches the
+ * subscriber lists and delta history, so they need no locking. If the
+ * history no longer reaches back to the snapshot, the stream is closed and
+ * the client reconnects. The history of a showtime with no subscribers is
+ * dropped once it has seen no change for
+ * {@code booking.seat-map.stream.history-retention}.</p>
+ *
+ * <p>Streams only carry changes made on this node: bookings, cancellations
+ * and holds published through {@link #publish(String, int[], SeatStatus)}
+ * here. A booking handled by another node reaches a subscriber only through
+ * the fresh snapshot it gets when its stream is reconnected, at the latest
+ * after {@code booking.seat-map.stream.timeout}. Deployments with several
+ * nodes should keep that timeout short, or have clients poll the seat map,
+ * whose ETag does cover every node.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+@Slf4j
+public class SeatMapBroadcaster {
+
+    private static final int HISTORY_SIZE = 64;
+
+    private final SeatMapVersions seatMapVersions;
+    private final ObjectMapper objectMapper;
+    private final Duration streamTimeout;
+    private final Duration flushInterval;
+    private final Duration heartbeatInterval;
+    private final Duration historyRetention;
+    private final int bufferSize;
+
+    private final Queue<Object> inbox = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "seat-map-broadcaster");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService writers;
+
+    // Dispatcher thread only
+    private final Map<String, List<Subscriber>> subscribers = new HashMap<>();
+    private final Map<String, History> histories = new HashMap<>();
+
+    public SeatMapBroadcaster(
+            SeatMapVersions seatMapVersions,
+            ObjectMapper objectMapper,
+            @Value("${booking.seat-map.stream.timeout:30m}") Duration streamTimeout,
+            @Value("${booking.seat-map.stream.flush-interval:100ms}") Duration flushInterval,
+            @Value("${booking.seat-map.stream.heartbeat-interval:15s}") Duration heartbeatInterval,
+            @Value("${booking.seat-map.stream.history-retention:5m}") Duration historyRetention,
+            @Value("${booking.seat-map.stream.buffer-size:32}") int bufferSize,
+            @Value("${booking.seat-map.stream.writer-threads:4}") int writerThreads) {
+        this.seatMapVersions = seatMapVersions;
+        this.objectMapper = objectMapper;
+        this.streamTimeout = streamTimeout;
+        this.flushInterval = flushInterval;
+        this.heartbeatInterval = heartbeatInterval;
+        this.historyRetention = historyRetention;
+        this.bufferSize = bufferSize;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "seat-map-writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    void startDispatcher() {
+        dispatcher.scheduleWithFixedDelay(this::flush,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        dispatcher.scheduleWithFixedDelay(this::heartbeat,
+                heartbeatInterval.toMillis(), heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopDispatcher() throws InterruptedException {
+        dispatcher.shutdownNow();
+        dispatcher.awaitTermination(1, TimeUnit.SECONDS);
+        subscribers.values().forEach(list -> list.forEach(Subscriber::close));
+        writers.shutdown();
+    }
+
+    /**
+     * Records a seat map change and queues it for subscribers.
+     *
+     * @param showtimeId the showtime that changed
+     * @param seatIndexes the seats whose status changed
+     * @param status the new status of those seats
+     */
+    public void publish(String showtimeId, int[] seatIndexes, SeatStatus status) {
+        long version = seatMapVersions.bump(showtimeId);
+        if (seatIndexes.length > 0) {
+            inbox.add(new Change(showtimeId, version, seatIndexes, status));
+        }
+    }
+
+    /**
+     * Opens a seat map stream.
+     *
+     * @param showtimeId the showtime to follow
+     * @param snapshot the current seat map, sent as the first event
+     * @return the emitter to return from the controller
+     */
+    public SseEmitter subscribe(String showtimeId, SeatsResponse snapshot) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        Runnable unsubscribe = () -> inbox.add(new Unsubscribe(showtimeId, emitter));
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+        inbox.add(new Subscribe(showtimeId, emitter, snapshot));
+        return emitter;
+    }
+
+    private void flush() {
+        try {
+            Map<String, List<Change>> changes = new LinkedHashMap<>();
+            List<Subscribe> subscribes = new ArrayList<>();
+            for (Object message = inbox.poll(); message != null; message = inbox.poll()) {
+                if (message instanceof Change change) {
+                    changes.computeIfAbsent(change.showtimeId(), key -> new ArrayList<>()).add(change);
+                } else if (message instanceof Subscribe subscribe) {
+                    subscribes.add(subscribe);
+                } else if (message instanceof Unsubscribe unsubscribe) {
+                    remove(unsubscribe.showtimeId(), unsubscribe.emitter());
+                }
+            }
+
+            changes.forEach(this::broadcast);
+            subscribes.forEach(this::open);
+            subscribers.values().removeIf(List::isEmpty);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush seat map changes", e);
+        }
+    }
+
+    private void broadcast(String showtimeId, List<Change> changes) {
+        changes.sort(Comparator.comparingLong(Change::version));
+        List<SeatMapDelta.SeatChange> seatChanges = new ArrayList<>();
+        for (Change change : changes) {
+            for (int seatIndex : change.seatIndexes()) {
+                seatChanges.add(new SeatMapDelta.SeatChange(seatIndex, change.status()));
+            }
+        }
+        long toVersion = changes.get(changes.size() - 1).version();
+        String json = toJson(SeatMapDelta.builder()
+                .version(toVersion)
+                .changes(seatChanges)
+                .build());
+
+        Event event = new Event(toVersion, json);
+        histories.computeIfAbsent(showtimeId, key -> new History()).add(event);
+
+        List<Subscriber> list = subscribers.get(showtimeId);
+        if (list != null) {
+            list.removeIf(subscriber -> !subscriber.offer(delta(event)));
+        }
+    }
+
+    private void open(Subscribe subscribe) {
+        Subscriber subscriber = new Subscriber(subscribe.emitter());
+        long snapshotVersion = subscribe.snapshot().getVersion();
+        if (!subscriber.offer(SseEmitter.event()
+                .name("snapshot")
+                .id(String.valueOf(snapshotVersion))
+                .data(subscribe.snapshot(), MediaType.APPLICATION_JSON))) {
+            return;
+        }
+
+        History history = histories.get(subscribe.showtimeId());
+        if (history != null) {
+            if (history.floor > snapshotVersion) {
+                // Changes after the snapshot have already dropped out of the history
+                subscriber.close();
+                return;
+            }
+            for (Event event : history.events) {
+                if (event.toVersion() > snapshotVersion && !subscriber.offer(delta(event))) {
+                    return;
+                }
+            }
+        }
+        subscribers.computeIfAbsent(subscribe.showtimeId(), key -> new ArrayList<>()).add(subscriber);
+    }
+
+    private void heartbeat() {
+        try {
+            subscribers.values().forEach(list -> list.removeIf(subscriber ->
+                    !subscriber.offer(SseEmitter.event().comment("heartbeat"))));
+            subscribers.values().removeIf(List::isEmpty);
+
+            long idleSince = System.nanoTime() - historyRetention.toNanos();
+            histories.entrySet().removeIf(entry -> !subscribers.containsKey(entry.getKey())
+                    && entry.getValue().lastChange - idleSince < 0);
+        } catch (RuntimeException e) {
+            log.error("Failed to send seat map heartbeats", e);
+        }
+    }
+
+    private void remove(String showtimeId, SseEmitter emitter) {
+        List<Subscriber> list = subscribers.get(showtimeId);
+        if (list != null && list.removeIf(subscriber -> subscriber.emitter == emitter) && list.isEmpty()) {
+            subscribers.remove(showtimeId);
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder delta(Event event) {
+        return SseEmitter.event()
+                .name("delta")
+                .id(String.valueOf(event.toVersion()))
+                .data(event.json(), MediaType.APPLICATION_JSON);
+    }
+
+    private String toJson(SeatMapDelta delta) {
+        try {
+            return objectMapper.writeValueAsString(delta);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize seat map delta", e);
+        }
+    }
+
+    private record Change(String showtimeId, long version, int[] seatIndexes, SeatStatus status) {
+    }
+
+    private record Subscribe(String showtimeId, SseEmitter emitter, SeatsResponse snapshot) {
+    }
+
+    private record Unsubscribe(String showtimeId, SseEmitter emitter) {
+    }
+
+    private record Event(long toVersion, String json) {
+    }
+
+    /**
+     * Most recent delta events of one showtime.
+     */
+    private static final class History {
+
+        private final Deque<Event> events = new ArrayDeque<>();
+
+        /** Highest version no longer covered by the retained events. */
+        private long floor;
+
+        /** {@link System#nanoTime()} of the last change. */
+        private long lastChange;
+
+        void add(Event event) {
+            events.addLast(event);
+            lastChange = System.nanoTime();
+            if (events.size() > HISTORY_SIZE) {
+                floor = events.removeFirst().toVersion();
+            }
+        }
+    }
+
+    /**
+     * One open stream and its outbox.
+     *
+     * <p>The dispatcher fills the outbox; at most one writer task drains it at
+     * a time. Only that task sends to or completes the emitter, since both
+     * wait on the emitter's monitor while a write is in progress.</p>
+     */
+    private final class Subscriber implements Runnable {
+
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> outbox = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+
+        /** Writer task only. */
+        private boolean completed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * Queues an event. Returns false if the subscriber is closed, or now closes because its outbox is full.
+         */
+        boolean offer(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return false;
+            }
+            if (!outbox.offer(event)) {
+                log.debug("Seat map subscriber fell behind by {} events, disconnecting", bufferSize);
+                close();
+                return false;
+            }
+            schedule();
+            return true;
+        }
+
+        /**
+         * Drops queued events and has the writer complete the stream.
+         */
+        void close() {
+            closed = true;
+            outbox.clear();
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this);
+                } catch (RejectedExecutionException e) {
+                    closed = true;
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = outbox.poll()) != null) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        // The container reports the error to the emitter's callbacks, which unsubscribe it
+                        closed = true;
+                    }
+                }
+                if (closed && !completed) {
+                    completed = true;
+                    emitter.complete();
+                }
+            } finally {
+                scheduled.set(false);
+                if ((closed ? !completed : !outbox.isEmpty())) {
+                    schedule();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.moviebooking.service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-showtime seat map version counters.
+ *
+ * <p>A seat map has two versions. The stored version is the showtime's
+ * {@code seatMapVersion} field, incremented in MongoDB by every booking and
+ * cancellation, whichever node made it. The local version counts the changes
+ * this node has published, which also covers holds being placed, released or
+ * expiring, since holds live on the node that placed them. Cached seat maps
+ * and ETags are keyed by both, so a change anywhere invalidates them without
+ * any explicit eviction.</p>
+ *
+ * <p>Local versions live in memory. ETags include a random epoch chosen at
+ * startup so that a restarted node never confirms an ETag it did not issue.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class SeatMapVersions {
+
+    private final String epoch = Long.toHexString(UUID.randomUUID().getMostSignificantBits());
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the current local seat map version of a showtime.
+     *
+     * @param showtimeId the showtime to look up
+     * @return the current version, starting at 0
+     */
+    public long current(String showtimeId) {
+        AtomicLong version = versions.get(showtimeId);
+        return version != null ? version.get() : 0L;
+    }
+
+    /**
+     * Records that a showtime's seat map has changed on this node.
+     *
+     * @param showtimeId the showtime that changed
+     * @return the new local version
+     */
+    public long bump(String showtimeId) {
+        return versions.computeIfAbsent(showtimeId, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Combines a stored version with this node's local version of the same showtime.
+     *
+     * @param showtimeId the showtime
+     * @param stored the showtime's stored seat map version
+     * @return the combined version
+     */
+    public Version of(String showtimeId, long stored) {
+        return new Version(stored, current(showtimeId));
+    }
+
+    /**
+     * Both versions of a seat map.
+     *
+     * @param stored the showtime's {@code seatMapVersion} in MongoDB
+     * @param local the version counted on this node
+     */
+    public record Version(long stored, long local) {
+    }
+
+    /**
+     * Builds the ETag for one representation of a seat map version.
+     *
+     * @param version the seat map version
+     * @param representation a short name of the representation, such as "compact", or null for the default one
+     * @return a quoted strong entity tag
+     */
+    public String etag(Version version, String representation) {
+        String tag = epoch + "-" + version.stored() + "-" + version.local();
+        return "\"" + (representation != null ? tag + "-" + representation : tag) + "\"";
+    }
+}
@@ -1,44 +1,130 @@
 package com.moviebooking.service;
 
-import java.util.ArrayList;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
 
+import com.moviebooking.dto.CompactSeatsResponse;
+import com.moviebooking.dto.CursorPage;
 import com.moviebooking.dto.SeatsResponse;
 import com.moviebooking.dto.ShowtimeCreateRequest;
 import com.moviebooking.dto.TheatreResponse;
-import com.moviebooking.enums.SeatStatus;
+import com.moviebooking.exception.BadRequestException;
 import com.moviebooking.exception.ResourceNotFoundException;
-import com.moviebooking.models.Booking;
-import com.moviebooking.models.Seat;
+import com.moviebooking.models.SeatInventory;
+import com.moviebooking.models.SeatLayoutTemplate;
 import com.moviebooking.models.Showtime;
+import com.moviebooking.models.ShowtimeSeatMap;
 import com.moviebooking.models.Theatre;
-import com.moviebooking.repository.BookingRepository;
+import com.moviebooking.repository.KeysetPageReader;
 import com.moviebooking.repository.ShowtimeRepository;
 import com.moviebooking.repository.TheatreRepository;
+import com.moviebooking.utils.SeatMapCodec;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class ShowtimeService {
     
+    private static final String SHOW_DATE = "showDate";
+    
     private final ShowtimeRepository showtimeRepository;
     private final TheatreRepository theatreRepository;
-    private final BookingRepository bookingRepository;
+    private final SeatInventoryService seatInventoryService;
+    private final SeatLayoutRegistry seatLayoutRegistry;
+    private final SeatHoldService seatHoldService;
+    private final SeatMapVersions seatMapVersions;
+    private final KeysetPageReader keysetPageReader;
+    private final NowShowingView nowShowingView;
+    
+    /**
+     * Rendered seat maps by showtime and version. Every seat write changes the
+     * version, so entries never go stale; they also expire after
+     * {@code booking.seat-map.cache-ttl} to free memory of quiet showtimes.
+     */
+    private final Cache<SeatMapKey, SeatsResponse> seatMaps;
+    private final Cache<SeatMapKey, CompactSeatsResponse> compactSeatMaps;
+    
+    public ShowtimeService(
+            ShowtimeRepository showtimeRepository,
+            TheatreRepository theatreRepository,
+            SeatInventoryService seatInventoryService,
+            SeatLayoutRegistry seatLayoutRegistry,
+            SeatHoldService seatHoldService,
+            SeatMapVersions seatMapVersions,
+            KeysetPageReader keysetPageReader,
+            NowShowingView nowShowingView,
+            @Value("${booking.seat-map.cache-size:1000}") long cacheSize,
+            @Value("${booking.seat-map.cache-ttl:10s}") Duration cacheTtl) {
+        this.showtimeRepository = showtimeRepository;
+        this.theatreRepository = theatreRepository;
+        this.seatInventoryService = seatInventoryService;
+        this.seatLayoutRegistry = seatLayoutRegistry;
+        this.seatHoldService = seatHoldService;
+        this.seatMapVersions = seatMapVersions;
+        this.keysetPageReader = keysetPageReader;
+        this.nowShowingView = nowShowingView;
+        this.seatMaps = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+        this.compactSeatMaps = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+    
+    public CursorPage<Showtime> getShowtimePage(String movieId, String theatreId, String city,
+                                                LocalDate from, LocalDate to,
+                                                String after, int limit, Set<String> fields) {
+        Criteria filter = showtimeFilter(movieId, theatreId, city, from, to);
+        return keysetPageReader.findPage(Showtime.class, filter, SHOW_DATE, after, limit, fields);
+    }
     
-    public List<Showtime> getShowtimes(String movieId, String theatreId) {
-        if (movieId != null && theatreId != null) {
-            return showtimeRepository.findByMovieIdAndTheatreId(movieId, theatreId);
-        } else if (movieId != null) {
-            return showtimeRepository.findByMovieId(movieId);
-        } else if (theatreId != null) {
-            return showtimeRepository.findByTheatreId(theatreId);
+    public Stream<Showtime> streamShowtimes(String movieId, String theatreId, String city,
+                                            LocalDate from, LocalDate to, Set<String> fields) {
+        Criteria filter = showtimeFilter(movieId, theatreId, city, from, to);
+        return keysetPageReader.stream(Showtime.class, filter, SHOW_DATE, fields);
+    }
+    
+    /**
+     * Builds the filter of a showtime listing. Without a start date only
+     * upcoming showtimes are listed, so with a movie or theatre the filter is a
+     * bounded range of the {@code (movieId, showDate)} or
+     * {@code (theatreId, showDate)} index. A city is resolved to its theatres.
+     */
+    private Criteria showtimeFilter(String movieId, String theatreId, String city, LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new BadRequestException("from must not be after to");
+        }
+        Criteria filter = Criteria.where(SHOW_DATE).gte(from != null ? from.atStartOfDay() : LocalDateTime.now());
+        if (to != null) {
+            filter.lt(to.plusDays(1).atStartOfDay());
+        }
+        if (movieId != null) {
+            filter.and("movieId").is(movieId);
         }
-        return showtimeRepository.findAll();
+        if (theatreId != null) {
+            filter.and("theatreId").is(theatreId);
+        } else if (city != null) {
+            List<String> theatreIds = theatreRepository.findByLocationIgnoreCase(city.trim()).stream()
+                    .map(Theatre::getId)
+                    .toList();
+            filter.and("theatreId").in(theatreIds);
+        }
+        return filter;
     }
     
     public Showtime createShowtime(ShowtimeCreateRequest request) {
@@ -50,24 +136,100 @@ public class ShowtimeService {
                 .theatreId(request.getTheatreId())
                 .showDate(request.getShowDate())
                 .price(request.getPrice())
-                .availableSeats(theatre.getTotalSeats())
+                .availableSeats(seatLayoutRegistry.getTemplate(theatre).getSeatCount())
+                .seatInventory(SeatInventory.forTheatre(theatre))
                 .build();
         
-        return showtimeRepository.save(showtime);
+        Showtime saved = showtimeRepository.save(showtime);
+        nowShowingView.add(saved, theatre);
+        return saved;
+    }
+    
+    /**
+     * Gets the current seat map version of a showtime, reading only its
+     * {@code seatMapVersion} field, so conditional requests can be answered
+     * before anything is rendered.
+     *
+     * @param showtimeId the showtime to look up
+     * @return the seat map version
+     * @throws ResourceNotFoundException if the showtime is not found
+     */
+    public SeatMapVersions.Version getSeatMapVersion(String showtimeId) {
+        long stored = showtimeRepository.findSeatMapVersion(showtimeId)
+                .orElseThrow(() -> new ResourceNotFoundException("Showtime not found"));
+        return seatMapVersions.of(showtimeId, stored);
     }
     
+    /**
+     * Gets the current seat map of a showtime.
+     *
+     * @param showtimeId the showtime whose seats to return
+     * @return the seat map, carrying the local version it was rendered for
+     * @throws ResourceNotFoundException if the showtime or its theatre is not found
+     */
     public SeatsResponse getSeats(String showtimeId) {
+        return getSeats(showtimeId, getSeatMapVersion(showtimeId));
+    }
+    
+    /**
+     * Gets the seat map of a showtime, rendering it only if no copy of the given version is cached.
+     *
+     * @param showtimeId the showtime whose seats to return
+     * @param version the version read through {@link #getSeatMapVersion(String)}
+     * @return the seat map, at least as new as the version, carrying its local version
+     * @throws ResourceNotFoundException if the showtime or its theatre is not found
+     */
+    public SeatsResponse getSeats(String showtimeId, SeatMapVersions.Version version) {
+        return seatMaps.get(new SeatMapKey(showtimeId, version), key -> renderSeats(showtimeId, version.local()));
+    }
+    
+    /**
+     * Gets the seat map of a showtime packed two bits per seat, encoding it
+     * only if no copy of the given version is cached.
+     *
+     * @param showtimeId the showtime whose seats to return
+     * @param version the version read through {@link #getSeatMapVersion(String)}
+     * @return the compact seat map, at least as new as the version, carrying its local version
+     * @throws ResourceNotFoundException if the showtime is not found
+     */
+    public CompactSeatsResponse getCompactSeats(String showtimeId, SeatMapVersions.Version version) {
+        return compactSeatMaps.get(new SeatMapKey(showtimeId, version),
+                key -> encodeSeats(showtimeId, version.local()));
+    }
+    
+    private CompactSeatsResponse encodeSeats(String showtimeId, long version) {
         Showtime showtime = showtimeRepository.findById(showtimeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Showtime not found"));
         
-        Theatre theatre = theatreRepository.findById(showtime.getTheatreId())
-                .orElseThrow(() -> new ResourceNotFoundException("Theatre not found"));
+        SeatInventory inventory = seatInventoryService.getInventory(showtime);
+        SeatLayoutTemplate layout = seatInventoryService.getLayout(showtime);
+        BitSet heldSeats = seatHoldService.getHeldSeats(showtimeId);
         
-        List<Booking> bookings = bookingRepository.findByShowtimeId(showtimeId);
-        List<Seat> bookedSeats = new ArrayList<>();
-        bookings.forEach(booking -> bookedSeats.addAll(booking.getSeats()));
+        return CompactSeatsResponse.builder()
+                .showtimeId(showtimeId)
+                .theatreId(showtime.getTheatreId())
+                .rows(inventory.getRows())
+                .seatsPerRow(inventory.getSeatsPerRow())
+                .rowLabels(layout.getRowLabels())
+                .aisles(layout.getAisles())
+                .version(version)
+                .seats(SeatMapCodec.encode(layout, inventory, heldSeats))
+                .build();
+    }
+    
+    private SeatsResponse renderSeats(String showtimeId, long version) {
+        // Showtime and theatre come back from a single aggregation
+        ShowtimeSeatMap seatMap = showtimeRepository.findSeatMap(showtimeId)
+                .orElseThrow(() -> new ResourceNotFoundException("Showtime not found"));
+        Theatre theatre = seatMap.getTheatre();
+        if (theatre == null) {
+            throw new ResourceNotFoundException("Theatre not found");
+        }
         
-        List<Seat> seats = generateSeatLayout(theatre, bookedSeats);
+        Showtime showtime = seatMap.toShowtime();
+        SeatInventory inventory = seatInventoryService.getInventory(showtime);
+        SeatLayoutTemplate layout = seatLayoutRegistry.getTemplate(theatre);
+        BitSet heldSeats = seatHoldService.getHeldSeats(showtimeId);
         
         return SeatsResponse.builder()
                 .showtimeId(showtimeId)
@@ -78,36 +240,14 @@ public class ShowtimeService {
                         .totalSeats(theatre.getTotalSeats())
                         .rows(theatre.getRows())
                         .seatsPerRow(theatre.getSeatsPerRow())
+                        .rowLabels(layout.getRowLabels())
+                        .aisles(layout.getAisles())
                         .build())
-                .seats(seats)
+                .seats(layout.render(inventory, heldSeats))
+                .version(version)
                 .build();
     }
     
-    private List<Seat> generateSeatLayout(Theatre theatre, List<Seat> bookedSeats) {
-        List<Seat> seats = new ArrayList<>();
-        String[] rows = {"A", "B", "C", "D", "E", "F", "G", "H", "I", "J"};
-        
-        for (int i = 0; i < theatre.getRows(); i++) {
-            for (int j = 1; j <= theatre.getSeatsPerRow(); j++) {
-                String row = rows[i];
-                SeatStatus status = SeatStatus.AVAILABLE;
-                
-                for (Seat bookedSeat : bookedSeats) {
-                    if (bookedSeat.getRow().equals(row) && bookedSeat.getNumber().equals(j)) {
-                        status = SeatStatus.BOOKED;
-                        break;
-                    }
-                }
-                
-                seats.add(Seat.builder()
-                        .row(row)
-                        .number(j)
-                        .status(status)
-                        .build());
-            }
-        }
-        
-        return seats;
+    private record SeatMapKey(String showtimeId, SeatMapVersions.Version version) {
     }
 }
-
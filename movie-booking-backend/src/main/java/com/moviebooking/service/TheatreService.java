@@ -1,10 +1,14 @@
 package com.moviebooking.service;
 
-import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import org.springframework.stereotype.Service;
 
+import com.moviebooking.dto.CursorPage;
 import com.moviebooking.dto.TheatreCreateRequest;
+import com.moviebooking.exception.BadRequestException;
+import com.moviebooking.models.SeatLayoutTemplate;
 import com.moviebooking.models.Theatre;
 import com.moviebooking.repository.TheatreRepository;
 
@@ -17,9 +21,16 @@ import lombok.extern.slf4j.Slf4j;
 public class TheatreService {
     
     private final TheatreRepository theatreRepository;
+    private final SeatLayoutRegistry seatLayoutRegistry;
+    private final CatalogCache catalogCache;
     
-    public List<Theatre> getAllTheatres() {
-        return theatreRepository.findAll();
+    public CursorPage<Theatre> getTheatrePage(String after, int limit, Set<String> fields) {
+        return catalogCache.getTheatrePage(after, limit, fields);
+    }
+    
+    public Stream<Theatre> streamTheatres() {
+        // Served from the cached snapshot; the response writer applies the fieldset
+        return catalogCache.getAllTheatres().stream();
     }
     
     public Theatre createTheatre(TheatreCreateRequest request) {
@@ -29,9 +40,24 @@ public class TheatreService {
                 .totalSeats(request.getTotalSeats())
                 .rows(request.getRows())
                 .seatsPerRow(request.getSeatsPerRow())
+                .rowLabels(request.getRowLabels())
+                .aisles(request.getAisles())
+                .gaps(request.getGaps())
                 .build();
         
-        return theatreRepository.save(theatre);
+        // Compile before saving so an invalid layout is never stored
+        theatre.generateIdIfNotSet();
+        SeatLayoutTemplate template;
+        try {
+            template = SeatLayoutTemplate.compile(theatre);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+        
+        Theatre saved = theatreRepository.save(theatre);
+        seatLayoutRegistry.register(template);
+        catalogCache.invalidateTheatres();
+        return saved;
     }
 }
 
@@ -0,0 +1,256 @@
+package com.moviebooking.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.moviebooking.dto.QueueTicketResponse;
+import com.moviebooking.exception.BadRequestException;
+import com.moviebooking.exception.TooManyRequestsException;
+import com.moviebooking.exception.UnauthorizedException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Virtual waiting room for flash-sale showtimes.
+ *
+ * <p>Showtimes listed in {@code booking.waiting-room.showtime-ids} only serve
+ * seat maps, holds and bookings to logged-in users with an admitted queue
+ * token. Joining the queue hands out a token, signed with
+ * {@code booking.waiting-room.secret}, carrying the user and the time at
+ * which they are admitted. Admission times are spaced
+ * {@code 1 / admit-rate} seconds apart, so at most
+ * {@code booking.waiting-room.admit-rate} users per second get through per
+ * showtime on this node. A user who joins again gets their existing ticket
+ * back instead of a new place at the end of the queue.</p>
+ *
+ * <p>Everything needed to answer a queue status request or to check a token
+ * is in the token itself, so the waiting room never touches MongoDB and
+ * rejected requests cost almost nothing. An admitted token stays valid for
+ * {@code booking.waiting-room.admission-window}, and only for the user it was
+ * issued to.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class WaitingRoomService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final Set<String> configuredShowtimeIds;
+    private final long admitIntervalMicros;
+    private final long admissionWindowMillis;
+    private final SecretKeySpec signingKey;
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * Admission time, in epoch microseconds, handed to the most recent ticket of each showtime.
+     */
+    private final Map<String, AtomicLong> lastAdmitMicros = new ConcurrentHashMap<>();
+
+    /**
+     * Token most recently issued to each showtime and user, kept no longer than the admission window.
+     */
+    private final Cache<String, String> issuedTokens;
+
+    public WaitingRoomService(
+            @Value("${booking.waiting-room.showtime-ids:}") Set<String> configuredShowtimeIds,
+            @Value("${booking.waiting-room.admit-rate:50}") double admitRate,
+            @Value("${booking.waiting-room.admission-window:15m}") Duration admissionWindow,
+            @Value("${booking.waiting-room.ticket-cache-size:100000}") long ticketCacheSize,
+            @Value("${booking.waiting-room.secret}") String secret,
+            @Value("${jwt.secret}") String jwtSecret) {
+        if (secret.isBlank() || secret.equals(jwtSecret)) {
+            throw new IllegalStateException("booking.waiting-room.secret must be set and differ from jwt.secret");
+        }
+        this.configuredShowtimeIds = configuredShowtimeIds;
+        this.admitIntervalMicros = Math.max(1, Math.round(1_000_000 / admitRate));
+        this.admissionWindowMillis = admissionWindow.toMillis();
+        this.issuedTokens = Caffeine.newBuilder()
+                .maximumSize(ticketCacheSize)
+                .expireAfterWrite(admissionWindow)
+                .build();
+        this.signingKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * Checks whether a showtime is behind the waiting room.
+     *
+     * @param showtimeId the showtime to check
+     * @return true if clients need an admitted queue token, false otherwise
+     */
+    public boolean isGated(String showtimeId) {
+        return configuredShowtimeIds.contains(showtimeId);
+    }
+
+    /**
+     * Joins the queue of a showtime.
+     *
+     * @param showtimeId the showtime to queue for
+     * @param userId the user joining the queue
+     * @return the user's signed ticket, or an admitted ticket without token if the showtime is not gated
+     */
+    public QueueTicketResponse join(String showtimeId, String userId) {
+        if (!isGated(showtimeId)) {
+            return QueueTicketResponse.builder()
+                    .showtimeId(showtimeId)
+                    .position(0L)
+                    .estimatedWaitSeconds(0L)
+                    .admitted(true)
+                    .build();
+        }
+
+        // Rejoining keeps the user's place instead of pushing everyone else back
+        String token = issuedTokens.get(showtimeId + ":" + userId, key -> {
+            long nowMicros = System.currentTimeMillis() * 1000;
+            long admitAtMicros = lastAdmitMicros.computeIfAbsent(showtimeId, id -> new AtomicLong())
+                    .accumulateAndGet(nowMicros, (last, now) -> Math.max(last + admitIntervalMicros, now));
+            long admitAt = admitAtMicros / 1000;
+            return sign(showtimeId + ":" + userId + ":" + admitAt + ":" + (admitAt + admissionWindowMillis));
+        });
+
+        return ticket(showtimeId, token, verify(showtimeId, userId, token));
+    }
+
+    /**
+     * Reports the queue position of a ticket.
+     *
+     * @param showtimeId the showtime the ticket is for
+     * @param userId the user asking
+     * @param token the queue token
+     * @return the ticket's position and estimated wait
+     * @throws BadRequestException if the token is invalid, expired, or for another showtime or user
+     */
+    public QueueTicketResponse status(String showtimeId, String userId, String token) {
+        return ticket(showtimeId, token, verify(showtimeId, userId, token));
+    }
+
+    /**
+     * Lets a request through if the showtime is not gated or the token has been admitted.
+     *
+     * @param showtimeId the showtime being accessed
+     * @param userId the authenticated user, null for anonymous requests
+     * @param token the queue token sent by the client, may be null
+     * @throws UnauthorizedException if the showtime is gated and the request is anonymous
+     * @throws TooManyRequestsException if the client has no token or has not been admitted yet
+     * @throws BadRequestException if the token is invalid, expired, or for another showtime or user
+     */
+    public void checkAdmitted(String showtimeId, String userId, String token) {
+        if (!isGated(showtimeId)) {
+            return;
+        }
+        if (userId == null) {
+            throw new UnauthorizedException("This showtime has a waiting room, please log in to join the queue");
+        }
+        checkToken(showtimeId, userId, token);
+    }
+
+    /**
+     * Lets a read-only request through on its queue token alone.
+     *
+     * <p>The token is signed for the user it was issued to, so it stands in
+     * for the login on requests that cannot carry one, such as a browser
+     * {@code EventSource}. Holds and bookings must use
+     * {@link #checkAdmitted(String, String, String)}.</p>
+     *
+     * @param showtimeId the showtime being accessed
+     * @param token the queue token sent by the client, may be null
+     * @throws TooManyRequestsException if the client has no token or has not been admitted yet
+     * @throws BadRequestException if the token is invalid, expired, or for another showtime
+     */
+    public void checkAdmittedByToken(String showtimeId, String token) {
+        if (isGated(showtimeId)) {
+            checkToken(showtimeId, null, token);
+        }
+    }
+
+    private void checkToken(String showtimeId, String userId, String token) {
+        if (token == null || token.isEmpty()) {
+            throw new TooManyRequestsException("This showtime has a waiting room, please join the queue", 1);
+        }
+        long waitMillis = verify(showtimeId, userId, token) - System.currentTimeMillis();
+        if (waitMillis > 0) {
+            throw new TooManyRequestsException("You are still in the queue for this showtime",
+                    Math.max(1, (waitMillis + 999) / 1000));
+        }
+    }
+
+    private QueueTicketResponse ticket(String showtimeId, String token, long admitAt) {
+        long waitMillis = Math.max(0, admitAt - System.currentTimeMillis());
+        return QueueTicketResponse.builder()
+                .token(token)
+                .showtimeId(showtimeId)
+                .position((waitMillis * 1000 + admitIntervalMicros - 1) / admitIntervalMicros)
+                .estimatedWaitSeconds((waitMillis + 999) / 1000)
+                .admitted(waitMillis == 0)
+                .build();
+    }
+
+    /**
+     * Checks a token's signature, showtime, user and expiry. A null user accepts whoever the token was issued to.
+     *
+     * @return the admission time carried by the token, in epoch milliseconds
+     */
+    private long verify(String showtimeId, String userId, String token) {
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            throw new BadRequestException("Invalid queue token");
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = Base64.getUrlDecoder().decode(token.substring(0, dot));
+            signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid queue token");
+        }
+        if (!MessageDigest.isEqual(signature, macs.get().doFinal(payload))) {
+            throw new BadRequestException("Invalid queue token");
+        }
+
+        // Payload is showtimeId:userId:admitAt:expiresAt; showtime and user IDs never contain ':'
+        String[] parts = new String(payload, StandardCharsets.UTF_8).split(":");
+        if (parts.length != 4 || !parts[0].equals(showtimeId)) {
+            throw new BadRequestException("Queue token is for a different showtime");
+        }
+        if (userId != null && !parts[1].equals(userId)) {
+            throw new BadRequestException("Queue token was issued to a different user");
+        }
+        if (Long.parseLong(parts[3]) < System.currentTimeMillis()) {
+            throw new BadRequestException("Queue token has expired, please join the queue again");
+        }
+        return Long.parseLong(parts[2]);
+    }
+
+    private String sign(String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(bytes) + "." + encoder.encodeToString(macs.get().doFinal(bytes));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.moviebooking.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.moviebooking.dto.CursorPage;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Writes catalog listings as JSON arrays, one document at a time.
+ *
+ * <p>Documents are serialized straight to the response as they are read, so
+ * listing a whole collection never holds more than the driver's current batch
+ * in memory. A page carries the link to the next one in a
+ * {@code Link: <...>; rel="next"} header and the bare cursor in
+ * {@code X-Next-Cursor}, which keeps the body a plain array.</p>
+ *
+ * <p>With a sparse fieldset, documents are trimmed to the requested fields and
+ * {@code id} before writing, since projected-out properties may still carry
+ * their Java defaults.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogResponseWriter {
+
+    /**
+     * Header carrying the cursor of the next page.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes one page, linking to the next one if there is one.
+     *
+     * @param page the page to write
+     * @param fields the requested fields, or null for all
+     * @return the response
+     */
+    public ResponseEntity<StreamingResponseBody> page(CursorPage<?> page, Set<String> fields) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (page.getNextCursor() != null) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.getNextCursor())
+                    .build()
+                    .encode()
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(output -> write(output, page.getItems().iterator(), fields));
+    }
+
+    /**
+     * Writes every document of a cursor and closes it afterwards.
+     *
+     * <p>The cursor is opened before the response is committed, so a bad
+     * query still gets a proper error response.</p>
+     *
+     * @param documents the open cursor to write
+     * @param fields the requested fields, or null for all
+     * @return the response
+     */
+    public ResponseEntity<StreamingResponseBody> all(Stream<?> documents, Set<String> fields) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(output -> {
+                    try (documents) {
+                        write(output, documents.iterator(), fields);
+                    }
+                });
+    }
+
+    private void write(OutputStream output, Iterator<?> documents, Set<String> fields) throws IOException {
+        // Let the servlet buffer decide when to flush instead of flushing every document
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        Set<String> retained = null;
+        if (fields != null && !fields.isEmpty()) {
+            retained = new HashSet<>(fields);
+            retained.add("id");
+        }
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.writeStartArray();
+            while (documents.hasNext()) {
+                Object document = documents.next();
+                if (retained == null) {
+                    writer.writeValue(generator, document);
+                } else {
+                    ObjectNode node = objectMapper.valueToTree(document);
+                    writer.writeValue(generator, node.retain(retained));
+                }
+            }
+            generator.writeEndArray();
+        }
+    }
+}
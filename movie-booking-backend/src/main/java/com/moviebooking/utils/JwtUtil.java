@@ -10,6 +10,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -29,6 +31,11 @@ import io.jsonwebtoken.security.Keys;
  *   <li>Expiration timestamp</li>
  * </ul>
  * 
+ * <p>The signing key and the parser are built once; both are immutable and
+ * shared by all threads. {@link #parseClaims(String)} verifies a token and
+ * returns all of its claims in one parse, so callers that need several claims
+ * should use it rather than the single-claim accessors.</p>
+ * 
  * <p>Configuration properties:</p>
  * <ul>
  *   <li><strong>jwt.secret</strong>: Secret key for signing tokens (Base64 encoded)</li>
@@ -43,18 +50,53 @@ import io.jsonwebtoken.security.Keys;
 public class JwtUtil {
     
     /**
-     * Secret key for signing JWT tokens.
-     * Must be Base64 encoded and at least 256 bits (32 bytes) long.
+     * Name of the custom claim carrying the user's role.
      */
-    @Value("${jwt.secret}")
-    private String secret;
+    public static final String ROLE_CLAIM = "role";
+    
+    /**
+     * Key for signing and verifying JWT tokens, derived once from {@code jwt.secret}.
+     */
+    private final Key signingKey;
+    
+    /**
+     * Verifying parser; thread-safe and reused for every token.
+     */
+    private final JwtParser parser;
     
     /**
      * Token expiration time in milliseconds.
      * Default is 24 hours (86400000 ms).
      */
-    @Value("${jwt.expiration}")
-    private int jwtExpiration;
+    private final int jwtExpiration;
+    
+    /**
+     * Creates the utility with a prebuilt key and parser.
+     * 
+     * @param secret secret key for signing JWT tokens; Base64 encoded and at least 256 bits (32 bytes) long
+     * @param jwtExpiration token expiration time in milliseconds
+     */
+    public JwtUtil(@Value("${jwt.secret}") String secret, @Value("${jwt.expiration}") int jwtExpiration) {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.jwtExpiration = jwtExpiration;
+    }
+    
+    /**
+     * Verifies a JWT token and returns its claims.
+     * 
+     * <p>The signature and the expiration time are both checked.</p>
+     * 
+     * @param token the JWT token to verify
+     * @return all claims of the token
+     * @throws JwtException if the token is malformed, forged or expired
+     * @throws IllegalArgumentException if the token is empty
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
     
     /**
      * Extracts the username (user ID) from a JWT token.
@@ -75,7 +117,7 @@ public class JwtUtil {
      * @return the extracted claim value
      */
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseClaims(token);
         return claimsResolver.apply(claims);
     }
     
@@ -88,7 +130,7 @@ public class JwtUtil {
      */
     public String generateToken(String userId, String role) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("role", role);
+        claims.put(ROLE_CLAIM, role);
         return createToken(claims, userId);
     }
     
@@ -100,12 +142,13 @@ public class JwtUtil {
      * @return the created JWT token
      */
     private String createToken(Map<String, Object> claims, String subject) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + jwtExpiration))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
     
@@ -117,18 +160,12 @@ public class JwtUtil {
      * @return true if the token is valid for the user, false otherwise
      */
     public Boolean isTokenValid(String token, String userId) {
-        final String username = extractUsername(token);
-        return (username.equals(userId)) && !isTokenExpired(token);
-    }
-    
-    /**
-     * Checks if a JWT token has expired.
-     * 
-     * @param token the JWT token to check
-     * @return true if the token has expired, false otherwise
-     */
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        try {
+            Claims claims = parseClaims(token);
+            return userId.equals(claims.getSubject()) && !claims.getExpiration().before(new Date());
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
     }
     
     /**
@@ -140,28 +177,4 @@ public class JwtUtil {
     public Date extractExpiration(String token) {
         return extractClaim(token, Claims::getExpiration);
     }
-    
-    /**
-     * Extracts all claims from a JWT token.
-     * 
-     * @param token the JWT token to extract claims from
-     * @return all claims from the token
-     */
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-    
-    /**
-     * Gets the signing key for JWT operations.
-     * 
-     * @return the signing key derived from the secret
-     */
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-}
\ No newline at end of file
+}
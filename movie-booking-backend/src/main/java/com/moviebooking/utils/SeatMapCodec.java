@@ -0,0 +1,104 @@
+package com.moviebooking.utils;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+import com.moviebooking.dto.CompactSeatsResponse;
+import com.moviebooking.models.SeatInventory;
+import com.moviebooking.models.SeatLayoutTemplate;
+
+/**
+ * Encodes seat maps into the packed format of {@link CompactSeatsResponse}.
+ *
+ * <p>The statuses are computed a bitmap word at a time: for every 64 seats the
+ * booked word and the held-but-not-booked word are bit-interleaved into 128
+ * bits of 2-bit codes, without creating any per-seat objects. Gaps in the
+ * layout set both bits.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class SeatMapCodec {
+
+    /**
+     * Size of the header that precedes the packed statuses in the binary format.
+     */
+    public static final int BINARY_HEADER_SIZE = 16;
+
+    private SeatMapCodec() {
+    }
+
+    /**
+     * Packs the seat statuses two bits per seat.
+     *
+     * @param layout the theatre's seat layout
+     * @param inventory the showtime's seat inventory
+     * @param held seat indexes currently held
+     * @return {@code ceil(capacity / 4)} bytes of packed statuses
+     */
+    public static byte[] encode(SeatLayoutTemplate layout, SeatInventory inventory, BitSet held) {
+        int capacity = inventory.capacity();
+        long[] booked = inventory.getBooked();
+        long[] heldWords = held.toLongArray();
+        long[] gaps = layout.getGaps();
+        byte[] packed = new byte[(capacity + 3) >>> 2];
+
+        for (int w = 0; w < booked.length; w++) {
+            long gapWord = gaps[w];
+            long bookedWord = booked[w] | gapWord;
+            long heldWord = ((w < heldWords.length ? heldWords[w] : 0L) & ~bookedWord) | gapWord;
+            long low = spread((int) heldWord) | spread((int) bookedWord) << 1;
+            long high = spread((int) (heldWord >>> 32)) | spread((int) (bookedWord >>> 32)) << 1;
+            int offset = w << 4;
+            writeLittleEndian(packed, offset, low);
+            writeLittleEndian(packed, offset + 8, high);
+        }
+
+        // Clear codes past the last seat, in case stray bits were set there
+        int tail = capacity & 3;
+        if (tail != 0) {
+            packed[packed.length - 1] &= (byte) ((1 << (tail << 1)) - 1);
+        }
+        return packed;
+    }
+
+    /**
+     * Serializes a compact seat map into the {@code application/octet-stream} format.
+     *
+     * <p>Layout, big-endian: {@code int rows}, {@code int seatsPerRow},
+     * {@code long version}, followed by the packed statuses.</p>
+     *
+     * @param seats the compact seat map
+     * @return the binary representation
+     */
+    public static byte[] toBinary(CompactSeatsResponse seats) {
+        return ByteBuffer.allocate(BINARY_HEADER_SIZE + seats.getSeats().length)
+                .putInt(seats.getRows())
+                .putInt(seats.getSeatsPerRow())
+                .putLong(seats.getVersion())
+                .put(seats.getSeats())
+                .array();
+    }
+
+    /**
+     * Spreads the 32 bits of {@code x} to the even bit positions of a long.
+     */
+    private static long spread(int x) {
+        long v = x & 0xFFFFFFFFL;
+        v = (v | v << 16) & 0x0000FFFF0000FFFFL;
+        v = (v | v << 8) & 0x00FF00FF00FF00FFL;
+        v = (v | v << 4) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | v << 2) & 0x3333333333333333L;
+        v = (v | v << 1) & 0x5555555555555555L;
+        return v;
+    }
+
+    private static void writeLittleEndian(byte[] target, int offset, long value) {
+        int end = Math.min(offset + 8, target.length);
+        for (int i = offset; i < end; i++) {
+            target[i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.moviebooking.benchmark;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.moviebooking.security.VerifiedTokenCache;
+import com.moviebooking.utils.JwtUtil;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Benchmark for the per-request cost of verifying a bearer token.
+ *
+ * <p>{@link #perCallParsing()} reproduces the earlier filter: three parses of
+ * the token (subject, then subject and expiration for the validity check),
+ * each decoding the secret and building a new key and parser.
+ * {@link #singleParse()} verifies once through
+ * {@link JwtUtil#parseClaims(String)}, and {@link #cachedVerify()} is the
+ * current path for an active session, a hit in the {@link VerifiedTokenCache}.</p>
+ *
+ * <p>Not part of the test suite. Run it through {@link #main(String[])} after
+ * {@code mvn test-compile}, with the test classpath.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "fa6c66042f6370cf853844434a6a3050842bfbf2fd91620436c81ea23364d5ea";
+    private static final int EXPIRATION = 86_400_000;
+
+    private JwtUtil jwtUtil;
+    private VerifiedTokenCache verifiedTokenCache;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(SECRET, EXPIRATION);
+        verifiedTokenCache = new VerifiedTokenCache(jwtUtil, new SimpleMeterRegistry(), EXPIRATION, 10_000);
+        token = jwtUtil.generateToken("550e8400-e29b-41d4-a716-446655440000", "USER");
+    }
+
+    @Benchmark
+    public boolean perCallParsing() {
+        String userId = parseWithNewParser(token).getSubject();
+        return userId.equals(parseWithNewParser(token).getSubject())
+                && !parseWithNewParser(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public Claims singleParse() {
+        return jwtUtil.parseClaims(token);
+    }
+
+    @Benchmark
+    public Claims cachedVerify() {
+        return verifiedTokenCache.verify(token);
+    }
+
+    private static Claims parseWithNewParser(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
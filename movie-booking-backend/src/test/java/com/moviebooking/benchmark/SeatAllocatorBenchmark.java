@@ -0,0 +1,107 @@
+package com.moviebooking.benchmark;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.moviebooking.models.SeatInventory;
+import com.moviebooking.models.SeatLayoutTemplate;
+import com.moviebooking.models.Theatre;
+import com.moviebooking.service.SeatAllocator;
+
+/**
+ * Benchmark for {@link SeatAllocator} on a 1,000-seat auditorium.
+ *
+ * <p>Not part of the test suite. Run it through {@link #main(String[])} after
+ * {@code mvn test-compile}, with the test classpath.</p>
+ *
+ * @author Movie Booking Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeatAllocatorBenchmark {
+
+    private static final int CAPACITY = 1000;
+
+    /**
+     * Seats per row; 100-seat rows span two bitmap words.
+     */
+    @Param({"40", "100"})
+    private int seatsPerRow;
+
+    /**
+     * Share of seats that are already booked or held.
+     */
+    @Param({"0.1", "0.5", "0.9"})
+    private double occupancy;
+
+    /**
+     * Number of adjacent seats requested.
+     */
+    @Param({"2", "6"})
+    private int count;
+
+    private final SeatAllocator allocator = new SeatAllocator();
+    private SeatLayoutTemplate layout;
+    private SeatInventory inventory;
+    private BitSet held;
+
+    @Setup
+    public void setUp() {
+        layout = SeatLayoutTemplate.compile(Theatre.builder()
+                .id("benchmark")
+                .rows(CAPACITY / seatsPerRow)
+                .seatsPerRow(seatsPerRow)
+                .build());
+        inventory = SeatInventory.builder()
+                .rows(CAPACITY / seatsPerRow)
+                .seatsPerRow(seatsPerRow)
+                .booked(new long[SeatInventory.wordCount(CAPACITY)])
+                .build();
+        held = new BitSet();
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (int seat = 0; seat < inventory.capacity(); seat++) {
+            if (random.nextDouble() < occupancy) {
+                // One in ten taken seats is a hold rather than a booking
+                if (random.nextInt(10) == 0) {
+                    held.set(seat);
+                } else {
+                    inventory.book(seat);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int[] allocate() {
+        return allocator.allocate(layout, inventory, held, count);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SeatAllocatorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}